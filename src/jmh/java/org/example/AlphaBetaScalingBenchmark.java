@@ -0,0 +1,57 @@
+package org.example;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Time to depth of Lazy SMP alpha-beta: each invocation searches the position to a fixed depth from
+ * an empty transposition table, so the score is the time the threads need together to complete that
+ * depth on the main thread. The speedup at N threads is the 1-thread score divided by the N-thread
+ * score; helpers also add nodes rather than only sharing the work, so it stays below N.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class AlphaBetaScalingBenchmark {
+  private static final int DEPTH = 7;
+
+  @Param({"opening", "middlegame"})
+  public String position;
+
+  @Param({"1", "2", "4", "8", "16"})
+  public int threads;
+
+  private ChessBoard board;
+  private AlphaBetaPlayer player;
+
+  @Setup
+  public void setUp() {
+    board = BenchmarkPositions.board(position);
+    player = new AlphaBetaPlayer(threads, 64);
+  }
+
+  @Setup(Level.Invocation)
+  public void clearTable() {
+    player.table().clear();
+  }
+
+  @Benchmark
+  public Optional<ChessEngine.MoveChoice> timeToDepth() {
+    return player.chooseMoveFixedDepth(board, true, DEPTH);
+  }
+}
@@ -0,0 +1,52 @@
+package org.example;
+
+/**
+ * Reference positions shared by the benchmarks, each with White to move and a SAN move that is
+ * legal for White under the simplified rules. Names are the values used in the @Param lists.
+ */
+final class BenchmarkPositions {
+  static final String[] NAMES = {"initial", "opening", "middlegame", "endgame", "exchange"};
+
+  private BenchmarkPositions() {}
+
+  static ChessBoard board(String name) {
+    return ChessBoard.fromFen(fen(name));
+  }
+
+  static String fen(String name) {
+    switch (name) {
+      case "initial":
+        return ChessBoard.INITIAL_FEN;
+      case "opening":
+        // 1.e4 e5 2.Nf3 Nc6 3.Bc4 Bc5
+        return "r1bqk1nr/pppp1ppp/2n5/2b1p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4";
+      case "middlegame":
+        return "r1bq1rk1/pp2bppp/2n1pn2/2pp4/3P4/2PBPN2/PP1N1PPP/R2QK2R w - - 0 1";
+      case "endgame":
+        return "8/2k5/2p2p2/8/3P2P1/4K3/6R1/r7 w - - 0 1";
+      case "exchange":
+        // Several pieces of both sides attack e5
+        return "1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1";
+      default:
+        throw new IllegalArgumentException("Unknown position: " + name);
+    }
+  }
+
+  /** A SAN move that is legal for White in the named position. */
+  static String san(String name) {
+    switch (name) {
+      case "initial":
+        return "Nf3";
+      case "opening":
+        return "d3";
+      case "middlegame":
+        return "a3";
+      case "endgame":
+        return "g5";
+      case "exchange":
+        return "a4";
+      default:
+        throw new IllegalArgumentException("Unknown position: " + name);
+    }
+  }
+}
@@ -0,0 +1,87 @@
+package org.example;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** Core ChessBoard operations on each reference position. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChessBoardBenchmark {
+
+  @Param({"initial", "opening", "middlegame", "endgame"})
+  public String position;
+
+  private ChessBoard board;
+  private String san;
+  private ChessBoard.SimpleMove simpleMove;
+  private int packedMove;
+  private final MoveList moves = new MoveList();
+
+  @Setup
+  public void setUp() {
+    board = BenchmarkPositions.board(position);
+    san = BenchmarkPositions.san(position);
+    board.generateMoves(true, moves);
+    packedMove = moves.get(moves.size() / 2);
+    simpleMove = Move.toSimpleMove(packedMove);
+  }
+
+  @Benchmark
+  public List<ChessBoard.SimpleMove> generateSimpleMoves() {
+    return board.generateSimpleMoves(true);
+  }
+
+  @Benchmark
+  public int generateMoves() {
+    board.generateMoves(true, moves);
+    return moves.size();
+  }
+
+  @Benchmark
+  public ChessBoard apply() {
+    return board.apply(simpleMove);
+  }
+
+  @Benchmark
+  public long makeUnmakeMove() {
+    board.makeMove(packedMove);
+    long key = board.zobristKey();
+    board.unmakeMove();
+    return key;
+  }
+
+  @Benchmark
+  public int evaluateMaterial() {
+    return board.evaluateMaterial();
+  }
+
+  @Benchmark
+  public int evaluate() {
+    return board.evaluate();
+  }
+
+  @Benchmark
+  public int computeEvaluation() {
+    return board.computeEvaluation();
+  }
+
+  @Benchmark
+  public ChessBoard.MoveResult tryApplySanSimple() {
+    return board.tryApplySanSimple(san, true);
+  }
+}
@@ -0,0 +1,62 @@
+package org.example;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * FEN ingestion and serialization throughput in positions per second. Loads go into one reused
+ * board and writes into one reused builder, as a bulk loader would; run with -prof gc to confirm
+ * they do not allocate.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FenBenchmark {
+
+  @Param({"initial", "opening", "middlegame", "endgame"})
+  public String position;
+
+  private String fen;
+  private byte[] fenBytes;
+  private final ChessBoard board = new ChessBoard();
+  private final StringBuilder out = new StringBuilder(128);
+
+  @Setup
+  public void setUp() {
+    fen = BenchmarkPositions.fen(position);
+    fenBytes = fen.getBytes(StandardCharsets.US_ASCII);
+    board.loadFen(fen);
+  }
+
+  @Benchmark
+  public long loadCharSequence() {
+    board.loadFen(fen);
+    return board.zobristKey();
+  }
+
+  @Benchmark
+  public long loadBytes() {
+    board.loadFen(fenBytes, 0, fenBytes.length);
+    return board.zobristKey();
+  }
+
+  @Benchmark
+  public int write() {
+    out.setLength(0);
+    return board.appendFen(out).length();
+  }
+}
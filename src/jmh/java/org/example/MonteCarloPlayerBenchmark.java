@@ -0,0 +1,43 @@
+package org.example;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/** A whole MCTS decision with a fixed iteration count and seed, so every run does the same work. */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MonteCarloPlayerBenchmark {
+
+  @Param({"initial", "opening", "middlegame", "endgame"})
+  public String position;
+
+  @Param({"2000"})
+  public int iterations;
+
+  private ChessBoard board;
+
+  @Setup
+  public void setUp() {
+    board = BenchmarkPositions.board(position);
+  }
+
+  @Benchmark
+  public Optional<MonteCarloPlayer.MoveChoice> chooseMove() {
+    return MonteCarloPlayer.chooseMoveFixedIterations(board, true, iterations, 42L);
+  }
+}
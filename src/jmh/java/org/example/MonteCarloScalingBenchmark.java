@@ -0,0 +1,58 @@
+package org.example;
+
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Thread scaling of the parallel MCTS variants: each invocation is one fresh search of ITERATIONS
+ * iterations, and the score is iterations (rollouts) per second, so near-linear scaling shows up as
+ * the score growing with the threads parameter. Playing strength per second is measured by
+ * MonteCarloMatch instead.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MonteCarloScalingBenchmark {
+  private static final int ITERATIONS = 20_000;
+
+  @Param({"opening", "middlegame"})
+  public String position;
+
+  @Param({"1", "2", "4", "8", "16", "32"})
+  public int threads;
+
+  private ChessBoard board;
+
+  @Setup
+  public void setUp() {
+    board = BenchmarkPositions.board(position);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ITERATIONS)
+  public Optional<MonteCarloPlayer.MoveChoice> treeParallel() {
+    return new MonteCarloPlayer(threads, 42L).chooseMoveFixedIterations(board, true, ITERATIONS);
+  }
+
+  @Benchmark
+  @OperationsPerInvocation(ITERATIONS)
+  public Optional<MonteCarloPlayer.MoveChoice> rootParallel() {
+    return MonteCarloPlayer.rootParallel(threads, 42L)
+        .chooseMoveFixedIterations(board, true, ITERATIONS);
+  }
+}
@@ -0,0 +1,57 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Text paths: SAN description, which does not depend on the position, and console rendering of each
+ * reference position.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NotationBenchmark {
+
+  // Pawn push, piece move with disambiguation, promotion capture with mate, castling, garbage
+  private static final String[] SAN = {"e4", "Nbd2", "exd8=Q#", "O-O-O", "Zz9"};
+
+  private int next;
+
+  /** The reference position to render. */
+  @State(Scope.Thread)
+  public static class Position {
+    @Param({"initial", "opening", "middlegame", "endgame"})
+    public String position;
+
+    ChessBoard board;
+
+    @Setup
+    public void setUp() {
+      board = BenchmarkPositions.board(position);
+    }
+  }
+
+  @Benchmark
+  public String describe() {
+    next = (next + 1) % SAN.length;
+    return ChessMoveDescriber.describe(SAN[next]);
+  }
+
+  @Benchmark
+  public String render(Position p) {
+    return ChessBoardRenderer.render(p.board, 4, 1, 4, 3);
+  }
+}
@@ -0,0 +1,68 @@
+package org.example;
+
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Static exchange evaluation of every White move of each reference position, against the MVV-LVA
+ * keys it refines; "exchange" is the position where several pieces fight over one square.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StaticExchangeBenchmark {
+  @Param({"initial", "opening", "middlegame", "endgame", "exchange"})
+  public String position;
+
+  private ChessBoard board;
+  private final MoveList moves = new MoveList();
+  private final StaticExchange exchange = new StaticExchange();
+
+  @Setup
+  public void setUp() {
+    board = BenchmarkPositions.board(position);
+    board.generateMoves(true, moves);
+  }
+
+  @Benchmark
+  public int evaluateAllMoves() {
+    int sum = 0;
+    for (int i = 0; i < moves.size(); i++) {
+      sum += exchange.evaluate(board, moves.get(i));
+    }
+    return sum;
+  }
+
+  @Benchmark
+  public int losingCaptures() {
+    int losing = 0;
+    for (int i = 0; i < moves.size(); i++) {
+      int move = moves.get(i);
+      if (Move.isCapture(move) && exchange.isLosing(board, move)) losing++;
+    }
+    return losing;
+  }
+
+  @Benchmark
+  public int mvvLvaKeys() {
+    int sum = 0;
+    for (int i = 0; i < moves.size(); i++) {
+      int move = moves.get(i);
+      if (Move.isCapture(move)) sum += Quiescence.captureKey(move);
+    }
+    return sum;
+  }
+}
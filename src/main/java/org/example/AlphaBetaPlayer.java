@@ -0,0 +1,369 @@
+package org.example;
+
+import java.util.Optional;
+
+/**
+ * Iterative-deepening alpha-beta player using the same simplified rules and evaluation as
+ * MonteCarloPlayer. It searches to depth 1, 2, ... until the time is up; every iteration is a
+ * principal variation search in negamax form: the first move at a node gets the full window, the
+ * others a null window around alpha and a full re-search only when they beat it. Leaves are scored
+ * by a capture-only Quiescence search, so a leaf in the middle of an exchange is not taken at its
+ * static evaluation (see withQuiescence; without it, by ChessBoard.evaluate).
+ *
+ * <p>Moves are the pseudo-legal ones of ChessBoard.generateMoves, so a king can be left en prise: a
+ * node where the side to move can capture the opposing king is scored as won (MATE less the plies
+ * to get there), and a side without moves scores a draw, as MonteCarloMatch adjudicates them. Moves
+ * are ordered with the previous iteration's principal variation first, then captures by most
+ * valuable victim and least valuable attacker (MVV-LVA, as in Quiescence), then quiet moves, then
+ * captures that lose material by StaticExchange.
+ *
+ * <p>Results are kept in a TranspositionTable across iterations and moves. Its best move for a
+ * position is tried right after the principal variation move, and at null-window nodes a stored
+ * score from at least the remaining depth ends the search of the node when its bound allows. King
+ * capture scores are stored relative to the node, so they stay correct at another ply.
+ *
+ * <p>The clock is read every few thousand nodes once depth 1 is done. When time runs out mid
+ * iteration the search unwinds at once, and the move played is that iteration's best so far when it
+ * already improved on the previous one (the previous best is searched first), else the previous
+ * iteration's choice. Move lists and the principal variation table are preallocated per ply, so a
+ * search allocates nothing.
+ *
+ * <p>With more than one thread the player runs Lazy SMP: helper threads search the same root with
+ * their own boards, move lists and principal variations and share nothing but the transposition
+ * table, whose entries steer each other's move ordering and cut each other's subtrees. To keep the
+ * helpers from all searching the same depth in step, each one skips some iteration depths in its
+ * own pattern (as in Stockfish's skip tables), so half of them run ahead of the main thread at any
+ * time. The main thread alone watches the clock and reports the result; when it stops, the helpers
+ * are stopped too.
+ */
+public class AlphaBetaPlayer implements ChessEngine {
+  static final int MAX_PLY = 64;
+  /** Score of capturing the king at the root; a capture further down scores MATE - ply. */
+  public static final int MATE = 100_000;
+
+  private static final int INFINITY = MATE + 1;
+  private static final int CHECK_EVERY_NODES = 1 << 11; // a power of two
+  private static final int KING_CAPTURE_KEY = Integer.MAX_VALUE;
+  private static final int PV_KEY = KING_CAPTURE_KEY - 1;
+  private static final int TABLE_MOVE_KEY = PV_KEY - 1;
+  private static final int DEFAULT_HASH_MEGABYTES = 16;
+  private static final int CAPTURE_KEY = 1 << 16;
+  // Depth skipping of helper i (cycling through the table): it skips depth d when
+  // ((d + SKIP_PHASE[i]) / SKIP_SIZE[i]) is odd
+  private static final int[] SKIP_SIZE = {
+    1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4
+  };
+  private static final int[] SKIP_PHASE = {
+    0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7
+  };
+
+  /**
+   * Depth completed by the main thread, nodes visited by all threads, score for the side to move
+   * and time of the last search.
+   */
+  public static record SearchStats(int depth, long nodes, int score, long millis) {
+    public long nodesPerSecond() {
+      return millis == 0 ? 0 : nodes * 1000 / millis;
+    }
+  }
+
+  private final int threads;
+  private final TranspositionTable table; // null without a table
+  private final Searcher[] searchers; // [0] runs on the caller's thread
+  // Set once the main search is done, to end the helpers' searches
+  private volatile boolean stop;
+  private long start;
+  private long timeNanos;
+  private boolean quiescenceEnabled = true;
+  private SearchStats lastStats = new SearchStats(0, 0, 0, 0);
+
+  /** Single-threaded player with a transposition table of the default size (16 MiB). */
+  public AlphaBetaPlayer() {
+    this(1, DEFAULT_HASH_MEGABYTES);
+  }
+
+  /** Single-threaded player with a transposition table of about hashMegabytes MiB (0: none). */
+  public AlphaBetaPlayer(int hashMegabytes) {
+    this(1, hashMegabytes);
+  }
+
+  /**
+   * Player searching with the given number of threads (the caller's thread plus threads - 1 helpers
+   * per search) over a shared transposition table of about hashMegabytes MiB, which Lazy SMP needs
+   * when there are helpers.
+   */
+  public AlphaBetaPlayer(int threads, int hashMegabytes) {
+    if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+    if (hashMegabytes < 0) throw new IllegalArgumentException("hashMegabytes must be >= 0");
+    if (threads > 1 && hashMegabytes == 0) {
+      throw new IllegalArgumentException("helper threads need a transposition table");
+    }
+    this.threads = threads;
+    table = hashMegabytes == 0 ? null : new TranspositionTable(hashMegabytes);
+    searchers = new Searcher[threads];
+    for (int i = 0; i < threads; i++) {
+      searchers[i] = new Searcher();
+    }
+  }
+
+  /**
+   * Scores leaves with a quiescence search over captures when enabled (the default), else with the
+   * static evaluation alone. Returns this player.
+   */
+  public AlphaBetaPlayer withQuiescence(boolean enabled) {
+    quiescenceEnabled = enabled;
+    return this;
+  }
+
+  /** Searches for about timeMs milliseconds (at least 10) and returns the best move found. */
+  @Override
+  public Optional<MoveChoice> chooseMove(ChessBoard board, boolean whiteToMove, long timeMs) {
+    return search(board, whiteToMove, Math.max(10, timeMs) * 1_000_000, MAX_PLY - 1);
+  }
+
+  /** Searches exactly to the given depth, without a deadline (tests, benchmarks). */
+  public Optional<MoveChoice> chooseMoveFixedDepth(
+      ChessBoard board, boolean whiteToMove, int depth) {
+    if (depth < 1 || depth >= MAX_PLY) {
+      throw new IllegalArgumentException("depth must be in 1.." + (MAX_PLY - 1));
+    }
+    return search(board, whiteToMove, Long.MAX_VALUE, depth);
+  }
+
+  /** Depth, nodes and score of the last search; nodesPerSecond gives the search speed. */
+  public SearchStats lastStats() {
+    return lastStats;
+  }
+
+  /** The player's transposition table, for its counters; null when it has none. */
+  public TranspositionTable table() {
+    return table;
+  }
+
+  // Deepens until timeNanos have passed (Long.MAX_VALUE: no limit) or maxDepth is completed, with
+  // the helpers searching alongside until then.
+  private Optional<MoveChoice> search(
+      ChessBoard position, boolean whiteToMove, long timeNanos, int maxDepth) {
+    start = System.nanoTime();
+    this.timeNanos = timeNanos;
+    stop = false;
+    if (table != null) table.newSearch();
+    Thread[] helpers = new Thread[threads - 1];
+    for (int i = 0; i < helpers.length; i++) {
+      Searcher helper = searchers[i + 1];
+      int skip = i % SKIP_SIZE.length;
+      helpers[i] =
+          new Thread(
+              () -> helper.deepen(position, whiteToMove, MAX_PLY - 1, skip),
+              "alphabeta-helper-" + (i + 1));
+      helpers[i].setDaemon(true);
+      helpers[i].start();
+    }
+    Searcher main = searchers[0];
+    main.deepen(position, whiteToMove, maxDepth, -1);
+    stop = true;
+    long nodes = main.nodes + main.quiescence.nodes;
+    for (int i = 0; i < helpers.length; i++) {
+      try {
+        helpers[i].join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+      nodes += searchers[i + 1].nodes + searchers[i + 1].quiescence.nodes;
+    }
+    lastStats =
+        new SearchStats(
+            main.completed, nodes, main.bestScore, (System.nanoTime() - start) / 1_000_000);
+    if (main.best == Move.NONE) return Optional.empty();
+    return Optional.of(new MoveChoice(Move.toSimpleMove(main.best), position.apply(main.best)));
+  }
+
+  // One thread's search state: its board, move lists, quiescence search and principal variation
+  // table, and the result of its iterative deepening.
+  private final class Searcher {
+    final ChessBoard board = new ChessBoard();
+    final Quiescence quiescence = new Quiescence();
+    final StaticExchange exchange = new StaticExchange();
+    final MoveList[] moves = new MoveList[MAX_PLY];
+    final int[][] keys = new int[MAX_PLY][];
+    // Triangular principal variation table: pv[ply][ply ..< pvLength[ply]] is the best line found
+    // from ply; the previous iteration's line is kept in prevPv for move ordering
+    final int[][] pv = new int[MAX_PLY][MAX_PLY];
+    final int[] pvLength = new int[MAX_PLY];
+    final int[] prevPv = new int[MAX_PLY];
+    int prevPvLength;
+    boolean followPv;
+    long nodes;
+    boolean canStop; // the main searcher reads the clock once it completed depth 1
+    boolean stopped;
+    int best;
+    int bestScore;
+    int completed;
+
+    Searcher() {
+      for (int ply = 0; ply < MAX_PLY; ply++) {
+        moves[ply] = new MoveList();
+        keys[ply] = new int[64];
+      }
+    }
+
+    // Iterative deepening up to maxDepth. The main searcher (skip < 0) searches every depth; a
+    // helper skips depths by its row of the skip tables and runs until stopped.
+    void deepen(ChessBoard position, boolean whiteToMove, int maxDepth, int skip) {
+      board.copyFrom(position);
+      board.setWhiteToMove(whiteToMove); // the table keys include the side to move
+      nodes = 0;
+      quiescence.nodes = 0;
+      canStop = false;
+      stopped = false;
+      prevPvLength = 0;
+      best = Move.NONE;
+      bestScore = 0;
+      completed = 0;
+      for (int depth = 1; depth <= maxDepth; depth++) {
+        if (skip >= 0 && ((depth + SKIP_PHASE[skip]) / SKIP_SIZE[skip]) % 2 == 1) continue;
+        followPv = true;
+        int score = search(depth, 0, -INFINITY, INFINITY, whiteToMove);
+        // An interrupted iteration only counts where its root search already found a better move
+        if (pvLength[0] > 0 && (!stopped || pv[0][0] != best)) {
+          best = pv[0][0];
+          bestScore = stopped ? bestScore : score;
+        }
+        if (stopped) break;
+        completed = depth;
+        canStop = skip < 0;
+        prevPvLength = pvLength[0];
+        System.arraycopy(pv[0], 0, prevPv, 0, prevPvLength);
+        if (Math.abs(score) >= MATE - MAX_PLY) break; // a king capture is forced either way
+      }
+    }
+
+    // Negamax principal variation search of depth plies below ply; scores are for the side to move.
+    // Returns 0 once stopped, which callers discard.
+    private int search(int depth, int ply, int alpha, int beta, boolean white) {
+      pvLength[ply] = ply;
+      if ((++nodes & (CHECK_EVERY_NODES - 1)) == 0
+          && (stop || (canStop && System.nanoTime() - start >= timeNanos))) {
+        stopped = true;
+      }
+      if (stopped) return 0;
+      if (depth == 0 && quiescenceEnabled) return quiescence.search(board, white, alpha, beta, ply);
+      if (depth == 0 || ply == MAX_PLY - 1) return white ? board.evaluate() : -board.evaluate();
+      long key = board.zobristKey();
+      int tableMove = Move.NONE;
+      if (table != null) {
+        long entry = table.probe(key);
+        if (entry != 0) {
+          tableMove = TranspositionTable.move(entry);
+          if (beta - alpha == 1 && TranspositionTable.depth(entry) >= depth) {
+            int score = fromTable(TranspositionTable.score(entry), ply);
+            int bound = TranspositionTable.bound(entry);
+            if (bound == TranspositionTable.EXACT
+                || (bound == TranspositionTable.LOWER && score >= beta)
+                || (bound == TranspositionTable.UPPER && score <= alpha)) {
+              return score;
+            }
+          }
+        }
+      }
+      MoveList list = moves[ply];
+      board.generateMoves(white, list);
+      if (list.isEmpty()) return 0;
+      order(list, ply, tableMove);
+      if (isKing(Move.captured(list.get(0)))) {
+        pv[ply][ply] = list.get(0);
+        pvLength[ply] = ply + 1;
+        return MATE - ply;
+      }
+      int alphaIn = alpha;
+      int bestScore = -INFINITY;
+      int bestMove = Move.NONE;
+      for (int i = 0; i < list.size(); i++) {
+        int move = list.get(i);
+        board.makeMove(move);
+        int score;
+        if (i == 0) {
+          score = -search(depth - 1, ply + 1, -beta, -alpha, !white);
+          followPv = false;
+        } else {
+          score = -search(depth - 1, ply + 1, -alpha - 1, -alpha, !white);
+          if (score > alpha && score < beta) {
+            score = -search(depth - 1, ply + 1, -beta, -alpha, !white);
+          }
+        }
+        board.unmakeMove();
+        if (stopped) return 0;
+        if (score > bestScore) {
+          bestScore = score;
+          bestMove = move;
+          if (score > alpha) {
+            alpha = score;
+            pv[ply][ply] = move;
+            int length = pvLength[ply + 1];
+            System.arraycopy(pv[ply + 1], ply + 1, pv[ply], ply + 1, length - ply - 1);
+            pvLength[ply] = length;
+            if (alpha >= beta) break;
+          }
+        }
+      }
+      if (table != null) {
+        int bound =
+            bestScore >= beta
+                ? TranspositionTable.LOWER
+                : bestScore > alphaIn ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        // Below alpha no move was proven best, so the entry keeps any earlier move
+        int move = bound == TranspositionTable.UPPER ? Move.NONE : bestMove;
+        table.store(key, move, toTable(bestScore, ply), depth, bound);
+      }
+      return bestScore;
+    }
+
+    // Sorts the moves by ordering key, highest first: a king capture, which ends the node whatever
+    // the principal variation or the table say, then the principal variation move while still on
+    // the previous iteration's line, the table's best move, captures by MVV-LVA, quiet moves in
+    // generation order and last the losing captures by MVV-LVA.
+    private void order(MoveList list, int ply, int tableMove) {
+      int n = list.size();
+      if (keys[ply].length < n) keys[ply] = new int[n];
+      int[] key = keys[ply];
+      int pvMove = followPv && ply < prevPvLength ? prevPv[ply] : Move.NONE;
+      boolean pvFound = false;
+      for (int i = 0; i < n; i++) {
+        int move = list.get(i);
+        if (isKing(Move.captured(move))) {
+          key[i] = KING_CAPTURE_KEY;
+        } else if (move == pvMove) {
+          key[i] = PV_KEY;
+          pvFound = true;
+        } else if (move == tableMove) {
+          key[i] = TABLE_MOVE_KEY;
+        } else if (Move.isCapture(move)) {
+          int mvvLva = Quiescence.captureKey(move);
+          key[i] = exchange.isLosing(board, move) ? mvvLva - CAPTURE_KEY : CAPTURE_KEY + mvvLva;
+        } else {
+          key[i] = 0;
+        }
+      }
+      if (!pvFound) followPv = false;
+      list.sort(key); // stable, so quiet moves stay in generation order
+    }
+  }
+
+  // King capture scores count plies from the root; the table stores them counted from the node.
+  private static int toTable(int score, int ply) {
+    if (score >= MATE - MAX_PLY) return score + ply;
+    if (score <= -MATE + MAX_PLY) return score - ply;
+    return score;
+  }
+
+  private static int fromTable(int score, int ply) {
+    if (score >= MATE - MAX_PLY) return score - ply;
+    if (score <= -MATE + MAX_PLY) return score + ply;
+    return score;
+  }
+
+  private static boolean isKing(int piece) {
+    return piece == ChessBoard.WHITE_KING || piece == ChessBoard.BLACK_KING;
+  }
+}
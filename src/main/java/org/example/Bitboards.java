@@ -0,0 +1,234 @@
+package org.example;
+
+/**
+ * Bitboard constants and precomputed attack tables used by ChessBoard. Squares are numbered 0..63
+ * with a1 = 0, b1 = 1, ..., h1 = 7, a2 = 8, ..., h8 = 63, i.e. square = rank * 8 + file, so bit i
+ * of a bitboard stands for square i.
+ *
+ * <p>Knight, king and pawn attacks are fixed per square. Bishop and rook attacks use "fancy" magic
+ * bitboards: the blockers on a square's relevant rays are multiplied by a per-square magic number
+ * and shifted down to index a shared table, so a sliding attack costs a mask, a multiply, a shift
+ * and a load. The tables are filled once at class load; the time taken and the table sizes are
+ * available from initNanos() and tableBytes(), and printed by main().
+ */
+final class Bitboards {
+  static final long FILE_A = 0x0101010101010101L;
+  static final long FILE_H = FILE_A << 7;
+  static final long RANK_1 = 0xFFL;
+  static final long RANK_3 = RANK_1 << 16;
+  static final long RANK_6 = RANK_1 << 40;
+
+  private static final long[] KNIGHT_ATTACKS = new long[64];
+  private static final long[] KING_ATTACKS = new long[64];
+  // [0] white pawn captures from a square, [1] black pawn captures
+  private static final long[][] PAWN_ATTACKS = new long[2][64];
+
+  private static final int[][] BISHOP_DIRECTIONS = {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}};
+  private static final int[][] ROOK_DIRECTIONS = {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+
+  private static final long[] BISHOP_MASKS = new long[64];
+  private static final int[] BISHOP_SHIFTS = new int[64];
+  private static final int[] BISHOP_OFFSETS = new int[64];
+  private static final long[] BISHOP_TABLE;
+
+  private static final long[] ROOK_MASKS = new long[64];
+  private static final int[] ROOK_SHIFTS = new int[64];
+  private static final int[] ROOK_OFFSETS = new int[64];
+  private static final long[] ROOK_TABLE;
+
+  // Magic multipliers, one per square, found offline by a seeded random search for sparse numbers
+  // that map every blocker subset of the square's mask to a collision-free table index.
+  private static final long[] BISHOP_MAGICS = {
+    0x0C40484094008020L, 0x00A2500451024180L, 0x0021010C00830003L, 0x1009240100400010L,
+    0x5604042100800C02L, 0x020310180C000284L, 0x020C010813300210L, 0x4001012210044440L,
+    0x0032124208180090L, 0xC000245004510020L, 0x08AD9040A2044202L, 0x0000212040800208L,
+    0x0000840308042100L, 0x8420820804060000L, 0x5000010430028800L, 0x0A00090401412840L,
+    0x0A40044848980080L, 0x8020081044410044L, 0x09240A0820202200L, 0x1008000082004029L,
+    0x0851000820080000L, 0x1001000200410400L, 0x204400020084C400L, 0x1481000041080124L,
+    0x0064048040082838L, 0x001128255010810CL, 0x0400E60210040840L, 0x20820024180080A0L,
+    0x4001001001004020L, 0x601101000808A800L, 0x0404148800480400L, 0x080C002026410C2AL,
+    0xA092200402115004L, 0x8002029010208114L, 0x4004109000080042L, 0x1C00400820020200L,
+    0x000C0B0400060082L, 0x0248100C08704100L, 0x28B00200808220A0L, 0x0801010104102C00L,
+    0x1000900410012200L, 0x000C04829010A800L, 0x0021202030005801L, 0x000001A018000900L,
+    0x0101200410400400L, 0x1901017000802100L, 0x0182420404005128L, 0x085011020482402EL,
+    0x008400A844100010L, 0x0402404818081002L, 0x2010010088D00000L, 0x2020040042020411L,
+    0x0022006020248000L, 0x0000082108008000L, 0x04100288080882A0L, 0x4190240844802072L,
+    0x0800802082202010L, 0x2018811404A20800L, 0x0200006042009002L, 0x0024105800840C40L,
+    0x0235800420020484L, 0x0000010820080090L, 0x0604106028210041L, 0x8082105008910040L,
+  };
+
+  private static final long[] ROOK_MAGICS = {
+    0x0080004000208011L, 0x2100102100804000L, 0x0080200080100008L, 0x0680061000800800L,
+    0x0200100200082004L, 0x2200010402001008L, 0x0080020000800100L, 0x0100002100038052L,
+    0x0000802040008000L, 0x0011002100804000L, 0x1210802000801008L, 0x0101000C20100101L,
+    0x0040808008000400L, 0x2202800400800200L, 0x0091003200110004L, 0x0490800040800100L,
+    0x508000C000200048L, 0x04E0004000300041L, 0x0030008010802000L, 0x1010008010800800L,
+    0x401C808008000400L, 0x0984008080040200L, 0x02000400C1121008L, 0x0020020024488104L,
+    0x4940802080004002L, 0x00C0100140200042L, 0x0002124100200101L, 0x8900084200201201L,
+    0x0008050100100800L, 0x0024000480800200L, 0x00081014002E0841L, 0x0400008200012844L,
+    0x4080002000400040L, 0x000080400080200AL, 0x0010008010802000L, 0x0048041000800881L,
+    0x0000041101000800L, 0x0002000280800400L, 0x0202482104001012L, 0x0000440082000041L,
+    0x0180400080008020L, 0x9120005000204002L, 0x8088420082160020L, 0x0810100008008080L,
+    0x0001020800850010L, 0x6000400410680120L, 0x0090583002040081L, 0x10000100A0420004L,
+    0x8800804200210200L, 0x1000400880200480L, 0x4602028040201A00L, 0x1008801000480180L,
+    0x0000040080080080L, 0x0040040002008080L, 0x0020A20108104400L, 0x000104650C008200L,
+    0x2300800020190041L, 0x0004A481014001D7L, 0x8024204208120082L, 0x0029000905201001L,
+    0x4003000230480005L, 0xC101000208040001L, 0x0008421001080084L, 0x1120502084010052L,
+  };
+  private static final long INIT_NANOS;
+
+  static {
+    long start = System.nanoTime();
+    int[][] knight = {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
+    int[][] king = {{1, 0}, {1, 1}, {0, 1}, {-1, 1}, {-1, 0}, {-1, -1}, {0, -1}, {1, -1}};
+    int[][] whitePawn = {{-1, 1}, {1, 1}};
+    int[][] blackPawn = {{-1, -1}, {1, -1}};
+    for (int sq = 0; sq < 64; sq++) {
+      KNIGHT_ATTACKS[sq] = stepAttacks(sq, knight);
+      KING_ATTACKS[sq] = stepAttacks(sq, king);
+      PAWN_ATTACKS[0][sq] = stepAttacks(sq, whitePawn);
+      PAWN_ATTACKS[1][sq] = stepAttacks(sq, blackPawn);
+    }
+    BISHOP_TABLE =
+        initMagics(BISHOP_DIRECTIONS, BISHOP_MASKS, BISHOP_MAGICS, BISHOP_SHIFTS, BISHOP_OFFSETS);
+    ROOK_TABLE = initMagics(ROOK_DIRECTIONS, ROOK_MASKS, ROOK_MAGICS, ROOK_SHIFTS, ROOK_OFFSETS);
+    INIT_NANOS = System.nanoTime() - start;
+  }
+
+  private Bitboards() {}
+
+  static int square(int file, int rank) {
+    return rank * 8 + file;
+  }
+
+  static int file(int square) {
+    return square & 7;
+  }
+
+  static int rank(int square) {
+    return square >>> 3;
+  }
+
+  static long knightAttacks(int square) {
+    return KNIGHT_ATTACKS[square];
+  }
+
+  static long kingAttacks(int square) {
+    return KING_ATTACKS[square];
+  }
+
+  /** Squares a pawn of the given color standing on square attacks. */
+  static long pawnAttacks(boolean white, int square) {
+    return PAWN_ATTACKS[white ? 0 : 1][square];
+  }
+
+  static long bishopAttacks(int square, long occupied) {
+    long blockers = occupied & BISHOP_MASKS[square];
+    int index = (int) ((blockers * BISHOP_MAGICS[square]) >>> BISHOP_SHIFTS[square]);
+    return BISHOP_TABLE[BISHOP_OFFSETS[square] + index];
+  }
+
+  static long rookAttacks(int square, long occupied) {
+    long blockers = occupied & ROOK_MASKS[square];
+    int index = (int) ((blockers * ROOK_MAGICS[square]) >>> ROOK_SHIFTS[square]);
+    return ROOK_TABLE[ROOK_OFFSETS[square] + index];
+  }
+
+  static long queenAttacks(int square, long occupied) {
+    return bishopAttacks(square, occupied) | rookAttacks(square, occupied);
+  }
+
+  /** Time spent building all attack tables at class load, in nanoseconds. */
+  static long initNanos() {
+    return INIT_NANOS;
+  }
+
+  /** Approximate heap footprint of the attack tables and their per-square parameters. */
+  static long tableBytes() {
+    long perSquare = 64L * (8 + 8 + 4 + 4); // mask, magic, shift, offset
+    return 8L * (BISHOP_TABLE.length + ROOK_TABLE.length)
+        + 2 * perSquare
+        + 8L * (KNIGHT_ATTACKS.length + KING_ATTACKS.length + 2 * 64);
+  }
+
+  /** Prints the attack table startup cost and memory footprint. */
+  public static void main(String[] args) {
+    System.out.printf(
+        "Attack tables: %.1f ms to build, %d KiB (bishop entries: %d, rook entries: %d)%n",
+        INIT_NANOS / 1e6, tableBytes() / 1024, BISHOP_TABLE.length, ROOK_TABLE.length);
+  }
+
+  private static long stepAttacks(int square, int[][] steps) {
+    long attacks = 0L;
+    for (int[] d : steps) {
+      int f = file(square) + d[0];
+      int r = rank(square) + d[1];
+      if (f >= 0 && f < 8 && r >= 0 && r < 8) {
+        attacks |= 1L << square(f, r);
+      }
+    }
+    return attacks;
+  }
+
+  // Ray walk used only while building the tables: attacks stop at (and include) the first blocker.
+  private static long slidingAttacks(int square, long occupied, int[][] directions) {
+    long attacks = 0L;
+    for (int[] d : directions) {
+      int f = file(square) + d[0];
+      int r = rank(square) + d[1];
+      while (f >= 0 && f < 8 && r >= 0 && r < 8) {
+        long bit = 1L << square(f, r);
+        attacks |= bit;
+        if ((occupied & bit) != 0) break;
+        f += d[0];
+        r += d[1];
+      }
+    }
+    return attacks;
+  }
+
+  // Relevant blockers: each ray without its last square, since a piece there changes nothing.
+  private static long relevantMask(int square, int[][] directions) {
+    long mask = 0L;
+    for (int[] d : directions) {
+      int f = file(square) + d[0];
+      int r = rank(square) + d[1];
+      while (f + d[0] >= 0 && f + d[0] < 8 && r + d[1] >= 0 && r + d[1] < 8) {
+        mask |= 1L << square(f, r);
+        f += d[0];
+        r += d[1];
+      }
+    }
+    return mask;
+  }
+
+  // Fills the shared attack table: for every blocker subset of each square's mask, the ray-walk
+  // attacks are stored at the slot the magic multiply selects.
+  private static long[] initMagics(
+      int[][] directions, long[] masks, long[] magics, int[] shifts, int[] offsets) {
+    int total = 0;
+    for (int sq = 0; sq < 64; sq++) {
+      masks[sq] = relevantMask(sq, directions);
+      shifts[sq] = 64 - Long.bitCount(masks[sq]);
+      offsets[sq] = total;
+      total += 1 << Long.bitCount(masks[sq]);
+    }
+    long[] table = new long[total];
+    for (int sq = 0; sq < 64; sq++) {
+      long mask = masks[sq];
+      long occ = 0L;
+      // Carry-Rippler enumeration of every subset of the mask
+      do {
+        long attacks = slidingAttacks(sq, occ, directions);
+        int index = offsets[sq] + (int) ((occ * magics[sq]) >>> shifts[sq]);
+        // Slots start at zero and real attack sets never are, so a differing entry is a collision
+        if (table[index] != 0 && table[index] != attacks) {
+          throw new IllegalStateException("Magic collision on square " + sq);
+        }
+        table[index] = attacks;
+        occ = (occ - mask) & mask;
+      } while (occ != 0);
+    }
+    return table;
+  }
+}
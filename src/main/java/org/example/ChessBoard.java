@@ -1,15 +1,99 @@
 package org.example;
 
 /**
- * Minimal chess board model starting from the standard initial position. Supports applying a subset
- * of SAN moves for White only (first move from the initial position): - Pawn pushes: a3/a4 .. h3/h4
- * (no captures, no promotions) - Knight moves: Na3, Nc3, Nd2, Ne2, Nf3, Nh3 (from b1 or g1) If a
- * move is legal under these constraints, returns a MoveResult containing origin/destination and the
- * board after the move. Otherwise returns illegal result.
+ * Chess position held as one bitboard per piece code (see Bitboards for the square numbering), with
+ * a piece-centric square list alongside, the side to move, castling rights, en passant square and
+ * move counters. It loads and writes FEN, generates pseudo-legal moves for every piece (en passant
+ * included; no castling or promotions) as packed ints (see Move) or SimpleMoves, and plays them
+ * either in place with makeMove/unmakeMove or on a copy with apply. A Zobrist key and the material
+ * and piece-square evaluation are updated incrementally with every piece placed or removed.
+ *
+ * <p>SAN input is limited to pawn and knight moves without disambiguation (tryApplySanSimple) and
+ * to White's first move (tryApplySanFromInitialWhite).
  */
 public class ChessBoard {
-  // Board is [rank][file] with 0-based indexing: rank 0 = 1st rank, file 0 = 'a'.
-  private final char[][] board = new char[8][8];
+  // Piece codes; they index the bitboard array below. EMPTY marks a vacant square.
+  public static final int EMPTY = 0;
+  public static final int WHITE_PAWN = 1;
+  public static final int WHITE_KNIGHT = 2;
+  public static final int WHITE_BISHOP = 3;
+  public static final int WHITE_ROOK = 4;
+  public static final int WHITE_QUEEN = 5;
+  public static final int WHITE_KING = 6;
+  public static final int BLACK_PAWN = 7;
+  public static final int BLACK_KNIGHT = 8;
+  public static final int BLACK_BISHOP = 9;
+  public static final int BLACK_ROOK = 10;
+  public static final int BLACK_QUEEN = 11;
+  public static final int BLACK_KING = 12;
+
+  // Castling rights bits, in FEN order (KQkq).
+  public static final int WHITE_KINGSIDE = 1;
+  public static final int WHITE_QUEENSIDE = 2;
+  public static final int BLACK_KINGSIDE = 4;
+  public static final int BLACK_QUEENSIDE = 8;
+
+  /** Standard starting position in Forsyth-Edwards Notation. */
+  public static final String INITIAL_FEN =
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+
+  // Character used by getAt/setAt for each piece code.
+  private static final String PIECE_CHARS = " PNBRQKpnbrqk";
+  // Signed material value per piece code (positive for White).
+  private static final int[] PIECE_VALUES = {
+    0, 100, 320, 330, 500, 900, 0, -100, -320, -330, -500, -900, 0
+  };
+  // Castling rights that survive a move touching each square: moving from or capturing on a king
+  // or rook home square clears the rights that depend on it.
+  private static final int[] CASTLING_KEPT = new int[64];
+
+  static {
+    java.util.Arrays.fill(CASTLING_KEPT, 15);
+    CASTLING_KEPT[0] = 15 & ~WHITE_QUEENSIDE; // a1
+    CASTLING_KEPT[4] = 15 & ~(WHITE_KINGSIDE | WHITE_QUEENSIDE); // e1
+    CASTLING_KEPT[7] = 15 & ~WHITE_KINGSIDE; // h1
+    CASTLING_KEPT[56] = 15 & ~BLACK_QUEENSIDE; // a8
+    CASTLING_KEPT[60] = 15 & ~(BLACK_KINGSIDE | BLACK_QUEENSIDE); // e8
+    CASTLING_KEPT[63] = 15 & ~BLACK_KINGSIDE; // h8
+  }
+
+  // One occupancy word per piece code; bit i is square i (a1 = 0, h1 = 7, h8 = 63).
+  private final long[] pieces = new long[13];
+  private long whiteOccupancy;
+  private long blackOccupancy;
+
+  // Piece-centric view kept alongside the bitboards: the piece code on each square, and for every
+  // piece code a list of the squares holding it (stride 64 per code, order arbitrary) with each
+  // occupied square's index in its list, so removing a piece is a swap with the list's last entry.
+  private final byte[] squarePiece = new byte[64];
+  private final byte[] pieceList = new byte[13 * 64];
+  private final byte[] listIndex = new byte[64];
+  private final int[] pieceCounts = new int[13];
+
+  private boolean whiteToMove = true;
+  // Remaining castling rights (KQkq bits), the square a pawn may capture en passant onto or -1,
+  // plies since the last capture or pawn move, and the move number that starts at 1.
+  private int castlingRights;
+  private int enPassantSquare = -1;
+  private int halfmoveClock;
+  private int fullmoveNumber = 1;
+  // Incrementally maintained evaluation terms (positive = White ahead), updated with every piece
+  // placed or removed so that reading the score costs a field load.
+  private int material;
+  private int positional;
+  // Zobrist key of the position, updated incrementally on every piece change and side switch.
+  private long key;
+
+  // Undo records pushed by makeMove: the packed move (which carries the captured piece), the
+  // previous state word (bit 0: White to move, bits 1-4: castling rights, bits 5-11: en-passant
+  // square + 1, bits 12+: halfmove clock) and the previous key. Parallel arrays that only ever
+  // grow.
+  private static final int[] NO_UNDO = new int[0];
+  private static final long[] NO_KEYS = new long[0];
+  private int[] undoStack = NO_UNDO;
+  private int[] undoState = NO_UNDO;
+  private long[] undoKeys = NO_KEYS;
+  private int undoCount;
 
   // Simple move model for internal engines (not SAN)
   public static record SimpleMove(int fromFile, int fromRank, int toFile, int toRank) {}
@@ -39,7 +123,6 @@ public class ChessBoard {
       int toFile = fileIndex(dest.charAt(0));
       int toRank = rankIndex(dest.charAt(1));
       char target = getAt(toFile, toRank);
-      char knightChar = whiteToMove ? 'N' : 'n';
       // Validate occupancy according to capture flag
       if (wantsCapture) {
         if (target == ' ') return MoveResult.illegal();
@@ -47,21 +130,15 @@ public class ChessBoard {
       } else {
         if (target != ' ') return MoveResult.illegal();
       }
-      int fromFile = -1, fromRank = -1, matches = 0;
-      for (int r = 0; r < 8; r++) {
-        for (int f = 0; f < 8; f++) {
-          if (getAt(f, r) == knightChar && knightCanMove(f, r, toFile, toRank)) {
-            fromFile = f;
-            fromRank = r;
-            matches++;
-          }
-        }
-      }
-      if (matches != 1) return MoveResult.illegal(); // ambiguous or none
-      ChessBoard after = copy();
-      after.setAt(fromFile, fromRank, ' ');
-      after.setAt(toFile, toRank, knightChar);
-      return MoveResult.legal(fromFile, fromRank, toFile, toRank, after);
+      // Knights that reach the destination are exactly those on squares it attacks back
+      long origins =
+          Bitboards.knightAttacks(Bitboards.square(toFile, toRank))
+              & pieces[whiteToMove ? WHITE_KNIGHT : BLACK_KNIGHT];
+      if (Long.bitCount(origins) != 1) return MoveResult.illegal(); // ambiguous or none
+      int from = Long.numberOfTrailingZeros(origins);
+      int fromFile = Bitboards.file(from);
+      int fromRank = Bitboards.rank(from);
+      return snapshotMove(fromFile, fromRank, toFile, toRank);
     }
 
     // Pawn captures: exd5 style (no en-passant)
@@ -89,10 +166,7 @@ public class ChessBoard {
       char target = getAt(toFile, toRank);
       if (target == ' ') return MoveResult.illegal();
       if (whiteToMove ? isWhite(target) : isBlack(target)) return MoveResult.illegal();
-      ChessBoard after = copy();
-      after.setAt(fromFile, fromRank, ' ');
-      after.setAt(toFile, toRank, pawnChar);
-      return MoveResult.legal(fromFile, fromRank, toFile, toRank, after);
+      return snapshotMove(fromFile, fromRank, toFile, toRank);
     }
 
     // Pawn pushes: <file><rank>, no captures
@@ -114,10 +188,7 @@ public class ChessBoard {
       // One-step move
       int fromRankOne = toRank - dir;
       if (fromRankOne >= 0 && fromRankOne < 8 && getAt(toFile, fromRankOne) == pawnChar) {
-        ChessBoard after = copy();
-        after.setAt(toFile, fromRankOne, ' ');
-        after.setAt(toFile, toRank, pawnChar);
-        return MoveResult.legal(toFile, fromRankOne, toFile, toRank, after);
+        return snapshotMove(toFile, fromRankOne, toFile, toRank);
       }
       // Two-step move
       int fromRankTwo = toRank - 2 * dir;
@@ -127,10 +198,7 @@ public class ChessBoard {
           && getAt(toFile, fromRankTwo) == pawnChar
           && fromRankTwo == startRank
           && getAt(toFile, midRank) == ' ') {
-        ChessBoard after = copy();
-        after.setAt(toFile, fromRankTwo, ' ');
-        after.setAt(toFile, toRank, pawnChar);
-        return MoveResult.legal(toFile, fromRankTwo, toFile, toRank, after);
+        return snapshotMove(toFile, fromRankTwo, toFile, toRank);
       }
       return MoveResult.illegal();
     }
@@ -154,44 +222,367 @@ public class ChessBoard {
   public static ChessBoard initial() {
     ChessBoard b = new ChessBoard();
     b.setupInitial();
+    b.setCastlingRights(WHITE_KINGSIDE | WHITE_QUEENSIDE | BLACK_KINGSIDE | BLACK_QUEENSIDE);
     return b;
   }
 
-  private ChessBoard copy() {
-    ChessBoard c = new ChessBoard();
-    for (int r = 0; r < 8; r++) {
-      System.arraycopy(this.board[r], 0, c.board[r], 0, 8);
+  /** Board for a FEN string (see loadFen). */
+  public static ChessBoard fromFen(CharSequence fen) {
+    ChessBoard b = new ChessBoard();
+    b.loadFen(fen);
+    return b;
+  }
+
+  /**
+   * Replace this board's position with the one described by a FEN record: placement, side to move,
+   * castling rights, en-passant square and, optionally, the halfmove clock and move number
+   * (defaulting to 0 and 1 as in EPD). The en-passant square is only kept when a pawn can capture
+   * onto it, as makeMove records it, so equal positions get equal keys. Characters are read in
+   * place without creating strings, and the undo history is discarded, so one board can be reused
+   * to load many positions. Throws IllegalArgumentException for malformed input; the board is then
+   * left empty.
+   */
+  public void loadFen(CharSequence fen) {
+    try {
+      loadFen(fen, null, 0, fen.length());
+    } catch (IllegalArgumentException e) {
+      clear();
+      throw e;
     }
-    return c;
   }
 
-  private void setupInitial() {
-    // Clear
-    for (int r = 0; r < 8; r++) {
-      for (int f = 0; f < 8; f++) {
-        board[r][f] = ' ';
+  /** loadFen over ASCII bytes, e.g. one line of a memory-mapped or buffered position file. */
+  public void loadFen(byte[] fen, int offset, int length) {
+    java.util.Objects.checkFromIndexSize(offset, length, fen.length);
+    try {
+      loadFen(null, fen, offset, length);
+    } catch (IllegalArgumentException e) {
+      clear();
+      throw e;
+    }
+  }
+
+  // Exactly one of chars and bytes is non-null; positions are relative to offset.
+  private void loadFen(CharSequence chars, byte[] bytes, int offset, int length) {
+    clear();
+    int i = 0;
+    int rank = 7;
+    int file = 0;
+    for (; i < length; i++) {
+      char c = fenChar(chars, bytes, offset + i);
+      if (c == ' ') break;
+      if (c == '/') {
+        if (file != 8 || rank == 0) throw badFen("rank " + (rank + 1) + " is incomplete");
+        rank--;
+        file = 0;
+      } else if (c >= '1' && c <= '8') {
+        file += c - '0';
+        if (file > 8) throw badFen("rank " + (rank + 1) + " is too long");
+      } else {
+        int code = PIECE_CHARS.indexOf(c);
+        if (code <= EMPTY || file > 7) throw badFen("unexpected '" + c + "' in placement");
+        putPiece(code, Bitboards.square(file++, rank));
       }
     }
+    if (rank != 0 || file != 8) throw badFen("placement must cover 8 ranks of 8 squares");
+    i = nextField(chars, bytes, offset, length, i);
+    char side = fenChar(chars, bytes, offset + i++);
+    if (side != 'w' && side != 'b') throw badFen("side to move must be 'w' or 'b'");
+    setWhiteToMove(side == 'w');
+    i = nextField(chars, bytes, offset, length, i);
+    int rights = 0;
+    if (i < length && fenChar(chars, bytes, offset + i) == '-') {
+      i++;
+    } else {
+      for (; i < length; i++) {
+        int bit = "KQkq".indexOf(fenChar(chars, bytes, offset + i));
+        if (bit < 0) break;
+        rights |= 1 << bit;
+      }
+      if (rights == 0) throw badFen("castling rights must be '-' or letters from KQkq");
+    }
+    setCastlingRights(rights);
+    i = nextField(chars, bytes, offset, length, i);
+    if (i < length && fenChar(chars, bytes, offset + i) == '-') {
+      i++;
+    } else {
+      char f = i < length ? fenChar(chars, bytes, offset + i) : ' ';
+      char r = i + 1 < length ? fenChar(chars, bytes, offset + i + 1) : ' ';
+      if (f < 'a' || f > 'h' || r != (whiteToMove ? '6' : '3')) {
+        throw badFen("en-passant square must be '-' or on the third or sixth rank");
+      }
+      int square = Bitboards.square(f - 'a', r - '1');
+      long takers = pieces[whiteToMove ? WHITE_PAWN : BLACK_PAWN];
+      if ((Bitboards.pawnAttacks(!whiteToMove, square) & takers) != 0) setEnPassantSquare(square);
+      i += 2;
+    }
+    // Counters are optional; anything after them other than whitespace is an error
+    int start = skipSpace(chars, bytes, offset, length, i);
+    if (start < length) {
+      i = numberEnd(chars, bytes, offset, length, start, i);
+      halfmoveClock = parseNumber(chars, bytes, offset, start, i);
+      start = skipSpace(chars, bytes, offset, length, i);
+      if (start < length) {
+        i = numberEnd(chars, bytes, offset, length, start, i);
+        fullmoveNumber = Math.max(1, parseNumber(chars, bytes, offset, start, i));
+        if (skipSpace(chars, bytes, offset, length, i) != length) {
+          throw badFen("unexpected characters after the move number");
+        }
+      }
+    }
+  }
+
+  private static char fenChar(CharSequence chars, byte[] bytes, int index) {
+    return chars != null ? chars.charAt(index) : (char) (bytes[index] & 0xFF);
+  }
+
+  private static int skipSpace(CharSequence chars, byte[] bytes, int offset, int length, int i) {
+    while (i < length && Character.isWhitespace(fenChar(chars, bytes, offset + i))) i++;
+    return i;
+  }
+
+  private static int nextField(CharSequence chars, byte[] bytes, int offset, int length, int i) {
+    int next = skipSpace(chars, bytes, offset, length, i);
+    if (next == i || next == length) throw badFen("expected at least four space-separated fields");
+    return next;
+  }
+
+  // End of the run of digits at start, which must follow at least one space after previous.
+  private static int numberEnd(
+      CharSequence chars, byte[] bytes, int offset, int length, int start, int previous) {
+    if (start == previous) throw badFen("fields must be separated by spaces");
+    int i = start;
+    while (i < length && Character.isDigit(fenChar(chars, bytes, offset + i))) i++;
+    if (i == start || i - start > 6) throw badFen("move counters must be numbers below 10^6");
+    return i;
+  }
+
+  private static int parseNumber(CharSequence chars, byte[] bytes, int offset, int start, int end) {
+    int value = 0;
+    for (int i = start; i < end; i++) {
+      value = value * 10 + (fenChar(chars, bytes, offset + i) - '0');
+    }
+    return value;
+  }
+
+  private static IllegalArgumentException badFen(String reason) {
+    return new IllegalArgumentException("Invalid FEN: " + reason);
+  }
+
+  /** FEN record of this position (see appendFen). */
+  public String toFen() {
+    return appendFen(new StringBuilder(90)).toString();
+  }
+
+  /**
+   * Append the six-field FEN record of this position to out and return it, so a caller serializing
+   * many positions can reuse one builder.
+   */
+  public StringBuilder appendFen(StringBuilder out) {
+    for (int rank = 7; rank >= 0; rank--) {
+      int empty = 0;
+      for (int file = 0; file < 8; file++) {
+        int piece = squarePiece[Bitboards.square(file, rank)];
+        if (piece == EMPTY) {
+          empty++;
+          continue;
+        }
+        if (empty > 0) out.append((char) ('0' + empty));
+        empty = 0;
+        out.append(PIECE_CHARS.charAt(piece));
+      }
+      if (empty > 0) out.append((char) ('0' + empty));
+      if (rank > 0) out.append('/');
+    }
+    out.append(whiteToMove ? " w " : " b ");
+    if (castlingRights == 0) out.append('-');
+    for (int bit = 0; bit < 4; bit++) {
+      if ((castlingRights & (1 << bit)) != 0) out.append("KQkq".charAt(bit));
+    }
+    out.append(' ');
+    if (enPassantSquare < 0) {
+      out.append('-');
+    } else {
+      out.append((char) ('a' + Bitboards.file(enPassantSquare)));
+      out.append((char) ('1' + Bitboards.rank(enPassantSquare)));
+    }
+    return out.append(' ').append(halfmoveClock).append(' ').append(fullmoveNumber);
+  }
+
+  // Empty board, White to move, no history.
+  private void clear() {
+    java.util.Arrays.fill(pieces, 0L);
+    java.util.Arrays.fill(squarePiece, (byte) EMPTY);
+    java.util.Arrays.fill(pieceCounts, 0);
+    whiteOccupancy = 0L;
+    blackOccupancy = 0L;
+    whiteToMove = true;
+    castlingRights = 0;
+    enPassantSquare = -1;
+    halfmoveClock = 0;
+    fullmoveNumber = 1;
+    material = 0;
+    positional = 0;
+    key = 0L;
+    undoCount = 0;
+  }
+
+  // Snapshot of this board with one piece moved; callers of tryApplySan* need both positions.
+  private MoveResult snapshotMove(int fromFile, int fromRank, int toFile, int toRank) {
+    ChessBoard after = copy();
+    int from = Bitboards.square(fromFile, fromRank);
+    after.playMove(encodeMove(from, Bitboards.square(toFile, toRank)));
+    return MoveResult.legal(fromFile, fromRank, toFile, toRank, after);
+  }
+
+  // Independent copy of the position without the undo history.
+  ChessBoard copy() {
+    ChessBoard c = new ChessBoard();
+    c.copyFrom(this);
+    return c;
+  }
+
+  // Overwrites this board with other's position and drops the undo history; lets a search reuse
+  // one scratch board per thread instead of allocating copies.
+  void copyFrom(ChessBoard other) {
+    System.arraycopy(other.pieces, 0, pieces, 0, pieces.length);
+    whiteOccupancy = other.whiteOccupancy;
+    blackOccupancy = other.blackOccupancy;
+    whiteToMove = other.whiteToMove;
+    castlingRights = other.castlingRights;
+    enPassantSquare = other.enPassantSquare;
+    halfmoveClock = other.halfmoveClock;
+    fullmoveNumber = other.fullmoveNumber;
+    key = other.key;
+    material = other.material;
+    positional = other.positional;
+    System.arraycopy(other.squarePiece, 0, squarePiece, 0, 64);
+    System.arraycopy(other.pieceList, 0, pieceList, 0, pieceList.length);
+    System.arraycopy(other.listIndex, 0, listIndex, 0, 64);
+    System.arraycopy(other.pieceCounts, 0, pieceCounts, 0, pieceCounts.length);
+    undoCount = 0;
+  }
+
+  private void setupInitial() {
     // White pieces
-    char[] back = new char[] {'R', 'N', 'B', 'Q', 'K', 'B', 'N', 'R'};
+    int[] back =
+        new int[] {
+          WHITE_ROOK,
+          WHITE_KNIGHT,
+          WHITE_BISHOP,
+          WHITE_QUEEN,
+          WHITE_KING,
+          WHITE_BISHOP,
+          WHITE_KNIGHT,
+          WHITE_ROOK
+        };
     for (int f = 0; f < 8; f++) {
-      board[0][f] = back[f]; // rank 1
-      board[1][f] = 'P'; // rank 2
+      putPiece(back[f], Bitboards.square(f, 0)); // rank 1
+      putPiece(WHITE_PAWN, Bitboards.square(f, 1)); // rank 2
     }
-    // Black pieces (not really needed for first white move, but included for completeness)
-    char[] backBlack = new char[] {'r', 'n', 'b', 'q', 'k', 'b', 'n', 'r'};
+    // Black pieces mirror White's; black codes are the white ones shifted by six
     for (int f = 0; f < 8; f++) {
-      board[6][f] = 'p'; // rank 7
-      board[7][f] = backBlack[f]; // rank 8
+      putPiece(BLACK_PAWN, Bitboards.square(f, 6)); // rank 7
+      putPiece(back[f] + 6, Bitboards.square(f, 7)); // rank 8
     }
   }
 
+  /** Compatibility view over the bitboards: the piece letter on a square, or ' ' when empty. */
   public char getAt(int file, int rank) { // file 0..7, rank 0..7
-    return board[rank][file];
+    return PIECE_CHARS.charAt(pieceAt(Bitboards.square(file, rank)));
   }
 
   public void setAt(int file, int rank, char piece) {
-    board[rank][file] = piece;
+    int code = PIECE_CHARS.indexOf(piece);
+    if (code < 0) throw new IllegalArgumentException("Unknown piece: '" + piece + "'");
+    int square = Bitboards.square(file, rank);
+    int old = pieceAt(square);
+    if (old != EMPTY) removePiece(old, square);
+    if (code != EMPTY) putPiece(code, square);
+  }
+
+  /** Piece code on a square (0..63), or EMPTY. */
+  public int pieceAt(int square) {
+    return squarePiece[square];
+  }
+
+  /** Squares holding a piece with the given code, as a bitboard (bit i = square i). */
+  long bitboard(int piece) {
+    return pieces[piece];
+  }
+
+  /** Squares holding a piece of the given color, as a bitboard. */
+  long occupancy(boolean white) {
+    return white ? whiteOccupancy : blackOccupancy;
+  }
+
+  /** Material value in centipawns of a piece code, for either color (0 for kings and EMPTY). */
+  static int pieceValue(int piece) {
+    return Math.abs(PIECE_VALUES[piece]);
+  }
+
+  /** How many pieces with the given code are on the board. */
+  public int pieceCount(int piece) {
+    return pieceCounts[piece];
+  }
+
+  /** Square of the index-th piece with the given code (0 <= index < pieceCount(piece)). */
+  public int pieceSquare(int piece, int index) {
+    if (index >= pieceCounts[piece]) throw new IndexOutOfBoundsException(index);
+    return pieceList[(piece << 6) + index];
+  }
+
+  private void putPiece(int piece, int square) {
+    long bit = 1L << square;
+    int index = pieceCounts[piece]++;
+    pieceList[(piece << 6) + index] = (byte) square;
+    listIndex[square] = (byte) index;
+    squarePiece[square] = (byte) piece;
+    pieces[piece] |= bit;
+    key ^= Zobrist.PIECE_SQUARE[piece][square];
+    material += PIECE_VALUES[piece];
+    positional += PieceSquareTables.value(piece, square);
+    if (piece < BLACK_PAWN) {
+      whiteOccupancy |= bit;
+    } else {
+      blackOccupancy |= bit;
+    }
+  }
+
+  private void removePiece(int piece, int square) {
+    long bit = ~(1L << square);
+    int last = pieceList[(piece << 6) + --pieceCounts[piece]];
+    int index = listIndex[square];
+    pieceList[(piece << 6) + index] = (byte) last;
+    listIndex[last] = (byte) index;
+    squarePiece[square] = EMPTY;
+    pieces[piece] &= bit;
+    key ^= Zobrist.PIECE_SQUARE[piece][square];
+    material -= PIECE_VALUES[piece];
+    positional -= PieceSquareTables.value(piece, square);
+    if (piece < BLACK_PAWN) {
+      whiteOccupancy &= bit;
+    } else {
+      blackOccupancy &= bit;
+    }
+  }
+
+  // Relocates a piece to an empty square, keeping its slot in the piece list.
+  private void movePiece(int piece, int from, int to) {
+    long bits = (1L << from) | (1L << to);
+    int index = listIndex[from];
+    pieceList[(piece << 6) + index] = (byte) to;
+    listIndex[to] = (byte) index;
+    squarePiece[from] = EMPTY;
+    squarePiece[to] = (byte) piece;
+    pieces[piece] ^= bits;
+    key ^= Zobrist.PIECE_SQUARE[piece][from] ^ Zobrist.PIECE_SQUARE[piece][to];
+    positional += PieceSquareTables.value(piece, to) - PieceSquareTables.value(piece, from);
+    if (piece < BLACK_PAWN) {
+      whiteOccupancy ^= bits;
+    } else {
+      blackOccupancy ^= bits;
+    }
   }
 
   /**
@@ -220,10 +611,7 @@ public class ChessBoard {
         if (knightCanMove(o[0], o[1], toFile, toRank)
             && getAt(o[0], o[1]) == 'N'
             && getAt(toFile, toRank) == ' ') {
-          ChessBoard after = copy();
-          after.setAt(o[0], o[1], ' ');
-          after.setAt(toFile, toRank, 'N');
-          return MoveResult.legal(o[0], o[1], toFile, toRank, after);
+          return snapshotMove(o[0], o[1], toFile, toRank);
         }
       }
       return MoveResult.illegal();
@@ -250,17 +638,11 @@ public class ChessBoard {
 
       // One-step to rank 3 (index 2)
       if (toRank == 2 && getAt(f, 2) == ' ') {
-        ChessBoard after = copy();
-        after.setAt(f, fromRank, ' ');
-        after.setAt(f, toRank, 'P');
-        return MoveResult.legal(f, fromRank, f, toRank, after);
+        return snapshotMove(f, fromRank, f, toRank);
       }
       // Two-step to rank 4 (index 3), must be clear at 2 and 3
       if (toRank == 3 && getAt(f, 2) == ' ' && getAt(f, 3) == ' ') {
-        ChessBoard after = copy();
-        after.setAt(f, fromRank, ' ');
-        after.setAt(f, toRank, 'P');
-        return MoveResult.legal(f, fromRank, f, toRank, after);
+        return snapshotMove(f, fromRank, f, toRank);
       }
       // One-step to rank 2 (index 1) or others are illegal at first move
       return MoveResult.illegal();
@@ -307,124 +689,383 @@ public class ChessBoard {
     return p >= 'a' && p <= 'z';
   }
 
-  // Generate simplified pseudo-legal moves: pawns (pushes and diagonal captures, no en-passant),
-  // knights (including captures).
-  // No check/termination rules considered.
+  // Generate simplified pseudo-legal moves for every piece: pawns (pushes and diagonal captures,
+  // including en passant, no promotions), knights, bishops, rooks, queens and the king (no
+  // castling). No check/termination rules considered.
   public java.util.List<SimpleMove> generateSimpleMoves(boolean whiteToMove) {
-    java.util.ArrayList<SimpleMove> moves = new java.util.ArrayList<>();
+    MoveList packed = new MoveList();
+    generateMoves(whiteToMove, packed);
+    java.util.ArrayList<SimpleMove> moves = new java.util.ArrayList<>(packed.size());
+    for (int i = 0; i < packed.size(); i++) {
+      moves.add(Move.toSimpleMove(packed.get(i)));
+    }
+    return moves;
+  }
+
+  /**
+   * Allocation-free form of generateSimpleMoves: clears out and fills it with packed moves (see
+   * Move). Pawn moves are computed set-wise for all pawns at once by shifting the pawn bitboard.
+   */
+  public void generateMoves(boolean whiteToMove, MoveList out) {
+    out.clear();
+    long empty = ~(whiteOccupancy | blackOccupancy);
     if (whiteToMove) {
-      // White pawns
-      for (int f = 0; f < 8; f++) {
-        for (int r = 0; r < 8; r++) {
-          char p = getAt(f, r);
-          if (p == 'P') {
-            int toR = r + 1;
-            if (toR < 8 && getAt(f, toR) == ' ') {
-              moves.add(new SimpleMove(f, r, f, toR));
-              if (r == 1 && getAt(f, r + 2) == ' ') {
-                moves.add(new SimpleMove(f, r, f, r + 2));
-              }
-            }
-            // captures
-            if (toR < 8) {
-              if (f - 1 >= 0 && isBlack(getAt(f - 1, toR)))
-                moves.add(new SimpleMove(f, r, f - 1, toR));
-              if (f + 1 < 8 && isBlack(getAt(f + 1, toR)))
-                moves.add(new SimpleMove(f, r, f + 1, toR));
-            }
-          } else if (p == 'N') {
-            addKnightMoves(moves, f, r, true);
-          }
-        }
-      }
+      long pawns = pieces[WHITE_PAWN];
+      long single = (pawns << 8) & empty;
+      addPawnMoves(out, single, 8, WHITE_PAWN);
+      addPawnMoves(out, ((single & Bitboards.RANK_3) << 8) & empty, 16, WHITE_PAWN);
+      // captures towards the a-file cannot land on the h-file and vice versa
+      addPawnMoves(out, (pawns << 7) & ~Bitboards.FILE_H & blackOccupancy, 7, WHITE_PAWN);
+      addPawnMoves(out, (pawns << 9) & ~Bitboards.FILE_A & blackOccupancy, 9, WHITE_PAWN);
     } else {
-      // Black pawns
-      for (int f = 0; f < 8; f++) {
-        for (int r = 0; r < 8; r++) {
-          char p = getAt(f, r);
-          if (p == 'p') {
-            int toR = r - 1;
-            if (toR >= 0 && getAt(f, toR) == ' ') {
-              moves.add(new SimpleMove(f, r, f, toR));
-              if (r == 6 && getAt(f, r - 2) == ' ') {
-                moves.add(new SimpleMove(f, r, f, r - 2));
-              }
-            }
-            // captures
-            if (toR >= 0) {
-              if (f - 1 >= 0 && isWhite(getAt(f - 1, toR)))
-                moves.add(new SimpleMove(f, r, f - 1, toR));
-              if (f + 1 < 8 && isWhite(getAt(f + 1, toR)))
-                moves.add(new SimpleMove(f, r, f + 1, toR));
-            }
-          } else if (p == 'n') {
-            addKnightMoves(moves, f, r, false);
-          }
-        }
+      long pawns = pieces[BLACK_PAWN];
+      long single = (pawns >>> 8) & empty;
+      addPawnMoves(out, single, -8, BLACK_PAWN);
+      addPawnMoves(out, ((single & Bitboards.RANK_6) >>> 8) & empty, -16, BLACK_PAWN);
+      addPawnMoves(out, (pawns >>> 9) & ~Bitboards.FILE_H & whiteOccupancy, -9, BLACK_PAWN);
+      addPawnMoves(out, (pawns >>> 7) & ~Bitboards.FILE_A & whiteOccupancy, -7, BLACK_PAWN);
+    }
+    // The en-passant square belongs to the side to move, and only pawns beside the pushed pawn
+    // (those a pawn of the other color on the square would attack) can take it
+    if (enPassantSquare >= 0 && whiteToMove == this.whiteToMove) {
+      int pawn = whiteToMove ? WHITE_PAWN : BLACK_PAWN;
+      int victim = whiteToMove ? BLACK_PAWN : WHITE_PAWN;
+      long takers = Bitboards.pawnAttacks(!whiteToMove, enPassantSquare) & pieces[pawn];
+      for (; takers != 0; takers &= takers - 1) {
+        int from = Long.numberOfTrailingZeros(takers);
+        out.add(Move.encode(from, enPassantSquare, pawn, victim, Move.FLAG_EN_PASSANT));
+      }
+    }
+    int offset = whiteToMove ? 0 : BLACK_PAWN - WHITE_PAWN;
+    long occupied = whiteOccupancy | blackOccupancy;
+    long notOwn = ~(whiteToMove ? whiteOccupancy : blackOccupancy);
+    // Pieces are visited through their lists, so only occupied squares are touched
+    for (int piece = WHITE_KNIGHT + offset; piece <= WHITE_KING + offset; piece++) {
+      int base = piece << 6;
+      for (int i = 0, n = pieceCounts[piece]; i < n; i++) {
+        int from = pieceList[base + i];
+        addMoves(out, from, piece, attacks(piece, from, occupied) & notOwn);
       }
     }
-    return moves;
   }
 
-  private void addKnightMoves(java.util.List<SimpleMove> moves, int f, int r, boolean white) {
-    int[][] d =
-        new int[][] {{1, 2}, {2, 1}, {2, -1}, {1, -2}, {-1, -2}, {-2, -1}, {-2, 1}, {-1, 2}};
-    for (int[] m : d) {
-      int tf = f + m[0];
-      int tr = r + m[1];
-      if (tf < 0 || tf >= 8 || tr < 0 || tr >= 8) continue;
-      char target = getAt(tf, tr);
-      if (target == ' ' || (white ? isBlack(target) : isWhite(target))) {
-        moves.add(new SimpleMove(f, r, tf, tr));
-      }
+  // Squares attacked by a non-pawn piece on from; sliders use the magic lookup tables.
+  private static long attacks(int piece, int from, long occupied) {
+    switch (piece) {
+      case WHITE_KNIGHT:
+      case BLACK_KNIGHT:
+        return Bitboards.knightAttacks(from);
+      case WHITE_BISHOP:
+      case BLACK_BISHOP:
+        return Bitboards.bishopAttacks(from, occupied);
+      case WHITE_ROOK:
+      case BLACK_ROOK:
+        return Bitboards.rookAttacks(from, occupied);
+      case WHITE_QUEEN:
+      case BLACK_QUEEN:
+        return Bitboards.queenAttacks(from, occupied);
+      default:
+        return Bitboards.kingAttacks(from);
+    }
+  }
+
+  /** Whether any piece of the given color attacks square (0..63). */
+  public boolean isSquareAttacked(int square, boolean byWhite) {
+    int offset = byWhite ? 0 : BLACK_PAWN - WHITE_PAWN;
+    long occupied = whiteOccupancy | blackOccupancy;
+    // A pawn attacks square exactly when a pawn of the other color on square would attack it back
+    if ((Bitboards.pawnAttacks(!byWhite, square) & pieces[WHITE_PAWN + offset]) != 0) return true;
+    if ((Bitboards.knightAttacks(square) & pieces[WHITE_KNIGHT + offset]) != 0) return true;
+    if ((Bitboards.kingAttacks(square) & pieces[WHITE_KING + offset]) != 0) return true;
+    long queens = pieces[WHITE_QUEEN + offset];
+    if ((Bitboards.bishopAttacks(square, occupied) & (pieces[WHITE_BISHOP + offset] | queens))
+        != 0) return true;
+    return (Bitboards.rookAttacks(square, occupied) & (pieces[WHITE_ROOK + offset] | queens)) != 0;
+  }
+
+  /**
+   * Pieces of both colors that attack square when only the squares in occupied block sliders, so
+   * that removing pieces from occupied uncovers the sliders behind them. Pieces no longer in
+   * occupied may still be included; callers mask them out.
+   */
+  long attackersTo(int square, long occupied) {
+    long bishops = pieces[WHITE_BISHOP] | pieces[BLACK_BISHOP];
+    long rooks = pieces[WHITE_ROOK] | pieces[BLACK_ROOK];
+    long queens = pieces[WHITE_QUEEN] | pieces[BLACK_QUEEN];
+    return (Bitboards.pawnAttacks(false, square) & pieces[WHITE_PAWN])
+        | (Bitboards.pawnAttacks(true, square) & pieces[BLACK_PAWN])
+        | (Bitboards.knightAttacks(square) & (pieces[WHITE_KNIGHT] | pieces[BLACK_KNIGHT]))
+        | (Bitboards.kingAttacks(square) & (pieces[WHITE_KING] | pieces[BLACK_KING]))
+        | (Bitboards.bishopAttacks(square, occupied) & (bishops | queens))
+        | (Bitboards.rookAttacks(square, occupied) & (rooks | queens));
+  }
+
+  /** Whether the king of the given color is attacked; false when that side has no king. */
+  public boolean isInCheck(boolean white) {
+    int king = white ? WHITE_KING : BLACK_KING;
+    return pieceCounts[king] != 0 && isSquareAttacked(pieceList[king << 6], !white);
+  }
+
+  // Destinations are given as a bitboard; each origin is the destination minus the shift used.
+  private void addPawnMoves(MoveList out, long targets, int shift, int pawn) {
+    int flags = (shift == 16 || shift == -16) ? Move.FLAG_DOUBLE_PUSH : 0;
+    while (targets != 0) {
+      int to = Long.numberOfTrailingZeros(targets);
+      targets &= targets - 1;
+      out.add(Move.encode(to - shift, to, pawn, pieceAt(to), flags));
     }
   }
 
+  private void addMoves(MoveList out, int from, int piece, long targets) {
+    while (targets != 0) {
+      int to = Long.numberOfTrailingZeros(targets);
+      targets &= targets - 1;
+      out.add(Move.encode(from, to, piece, pieceAt(to), 0));
+    }
+  }
+
+  /**
+   * Snapshot variant of makeMove: returns a new board and leaves this one untouched. Throws
+   * IllegalArgumentException when the origin square is empty.
+   */
   public ChessBoard apply(SimpleMove move) {
     ChessBoard after = copy();
-    char piece = after.getAt(move.fromFile(), move.fromRank());
-    after.setAt(move.fromFile(), move.fromRank(), ' ');
-    after.setAt(move.toFile(), move.toRank(), piece);
+    after.playMove(
+        encodeMove(
+            Bitboards.square(move.fromFile(), move.fromRank()),
+            Bitboards.square(move.toFile(), move.toRank())));
+    return after;
+  }
+
+  /** Snapshot variant of makeMove for a packed move. */
+  public ChessBoard apply(int move) {
+    ChessBoard after = copy();
+    after.playMove(move);
     return after;
   }
 
+  /**
+   * Play a move on this board in place. Each call pushes a compact undo record (the packed move,
+   * which already carries the captured piece, plus the previous side, castling rights, en-passant
+   * square, halfmove clock and key) so that unmakeMove can restore the previous position without
+   * copying the board; the stacks only grow, so steady-state make/unmake does not allocate. Throws
+   * IllegalArgumentException, leaving the board as it was, when the origin square is empty.
+   */
+  public void makeMove(SimpleMove move) {
+    makeMove(
+        encodeMove(
+            Bitboards.square(move.fromFile(), move.fromRank()),
+            Bitboards.square(move.toFile(), move.toRank())));
+  }
+
+  /** In-place move for a packed move generated for this position (see generateMoves). */
+  public void makeMove(int move) {
+    if (undoCount == undoStack.length) {
+      int capacity = Math.max(32, undoCount * 2);
+      undoStack = java.util.Arrays.copyOf(undoStack, capacity);
+      undoState = java.util.Arrays.copyOf(undoState, capacity);
+      undoKeys = java.util.Arrays.copyOf(undoKeys, capacity);
+    }
+    undoStack[undoCount] = move;
+    undoState[undoCount] =
+        (whiteToMove ? 1 : 0)
+            | castlingRights << 1
+            | (enPassantSquare + 1) << 5
+            | halfmoveClock << 12;
+    undoKeys[undoCount] = key;
+    undoCount++;
+    playMove(move);
+  }
+
+  /** Take back the most recent makeMove. */
+  public void unmakeMove() {
+    if (undoCount == 0) throw new IllegalStateException("No move to unmake");
+    int move = undoStack[--undoCount];
+    int from = Move.from(move);
+    int to = Move.to(move);
+    int piece = Move.piece(move);
+    int captured = Move.captured(move);
+    movePiece(piece, to, from);
+    if (captured != EMPTY) putPiece(captured, captureSquare(move));
+    int state = undoState[undoCount];
+    whiteToMove = (state & 1) != 0;
+    castlingRights = (state >>> 1) & 15;
+    enPassantSquare = ((state >>> 5) & 127) - 1;
+    halfmoveClock = state >>> 12;
+    if (piece >= BLACK_PAWN) fullmoveNumber--;
+    key = undoKeys[undoCount];
+  }
+
+  /** Number of moves made with makeMove that can still be unmade. */
+  public int undoDepth() {
+    return undoCount;
+  }
+
+  // Packs a from/to pair for this position; a pawn moving onto the en-passant square captures
+  // the pawn beside it. There must be a piece on from.
+  private int encodeMove(int from, int to) {
+    int piece = pieceAt(from);
+    if (piece == EMPTY) throw new IllegalArgumentException("no piece on square " + from);
+    if (to == enPassantSquare && (piece == WHITE_PAWN || piece == BLACK_PAWN)) {
+      int victim = piece == WHITE_PAWN ? BLACK_PAWN : WHITE_PAWN;
+      return Move.encode(from, to, piece, victim, Move.FLAG_EN_PASSANT);
+    }
+    return Move.encode(from, to, piece, pieceAt(to), 0);
+  }
+
+  // En-passant victims stand behind the destination, on the rank the capturing pawn left.
+  private static int captureSquare(int move) {
+    int to = Move.to(move);
+    return (Move.flags(move) & Move.FLAG_EN_PASSANT) != 0 ? to ^ 8 : to;
+  }
+
+  // Moves the piece, removes what it captures, updates castling rights, en passant and the move
+  // counters, and hands the move to the opponent of the moving piece.
+  private void playMove(int move) {
+    int from = Move.from(move);
+    int to = Move.to(move);
+    int piece = Move.piece(move);
+    int captured = Move.captured(move);
+    boolean pawn = piece == WHITE_PAWN || piece == BLACK_PAWN;
+    if (captured != EMPTY) removePiece(captured, captureSquare(move));
+    movePiece(piece, from, to);
+    setCastlingRights(castlingRights & CASTLING_KEPT[from] & CASTLING_KEPT[to]);
+    int target = -1;
+    if (pawn && (to - from == 16 || from - to == 16)) {
+      // Only record the square when an enemy pawn could actually take on it, so transpositions
+      // that cannot differ by an en-passant capture keep the same key
+      int square = (from + to) >>> 1;
+      long enemyPawns = pieces[piece == WHITE_PAWN ? BLACK_PAWN : WHITE_PAWN];
+      if ((Bitboards.pawnAttacks(piece == WHITE_PAWN, square) & enemyPawns) != 0) target = square;
+    }
+    setEnPassantSquare(target);
+    halfmoveClock = pawn || captured != EMPTY ? 0 : halfmoveClock + 1;
+    if (piece >= BLACK_PAWN) fullmoveNumber++;
+    setWhiteToMove(piece >= BLACK_PAWN);
+  }
+
+  /**
+   * Side to move. Moves made through makeMove, apply or tryApplySan* pass the turn to the opponent
+   * of the piece that moved; initial() and new boards have White to move.
+   */
+  public boolean whiteToMove() {
+    return whiteToMove;
+  }
+
+  public void setWhiteToMove(boolean white) {
+    if (white != whiteToMove) {
+      whiteToMove = white;
+      key ^= Zobrist.SIDE_TO_MOVE;
+    }
+  }
+
+  /** Castling rights still held, as a mask of WHITE_KINGSIDE .. BLACK_QUEENSIDE. */
+  public int castlingRights() {
+    return castlingRights;
+  }
+
+  /** Square (0..63) a pawn of the side to move could capture en passant onto, or -1. */
+  public int enPassantSquare() {
+    return enPassantSquare;
+  }
+
+  /** Plies since the last capture or pawn move. */
+  public int halfmoveClock() {
+    return halfmoveClock;
+  }
+
+  /** Move number, starting at 1 and incremented after each Black move. */
+  public int fullmoveNumber() {
+    return fullmoveNumber;
+  }
+
+  private void setCastlingRights(int rights) {
+    key ^= Zobrist.CASTLING[castlingRights] ^ Zobrist.CASTLING[rights];
+    castlingRights = rights;
+  }
+
+  private void setEnPassantSquare(int square) {
+    if (enPassantSquare >= 0) key ^= Zobrist.EN_PASSANT_FILE[Bitboards.file(enPassantSquare)];
+    if (square >= 0) key ^= Zobrist.EN_PASSANT_FILE[Bitboards.file(square)];
+    enPassantSquare = square;
+  }
+
+  /**
+   * 64-bit Zobrist key of the position (pieces, side to move, castling rights and en-passant
+   * square), maintained incrementally.
+   */
+  public long zobristKey() {
+    return key;
+  }
+
+  // Full recomputation of the key from scratch; used to check the incremental updates.
+  long computeZobristKey() {
+    long k = whiteToMove ? 0L : Zobrist.SIDE_TO_MOVE;
+    k ^= Zobrist.CASTLING[castlingRights];
+    if (enPassantSquare >= 0) k ^= Zobrist.EN_PASSANT_FILE[Bitboards.file(enPassantSquare)];
+    for (int p = WHITE_PAWN; p <= BLACK_KING; p++) {
+      long bb = pieces[p];
+      while (bb != 0) {
+        k ^= Zobrist.PIECE_SQUARE[p][Long.numberOfTrailingZeros(bb)];
+        bb &= bb - 1;
+      }
+    }
+    return k;
+  }
+
+  /**
+   * Positions are equal when they have the same pieces on the same squares, side to move, castling
+   * rights and en-passant square; the move counters are ignored.
+   */
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof ChessBoard)) return false;
+    ChessBoard other = (ChessBoard) o;
+    return key == other.key
+        && whiteToMove == other.whiteToMove
+        && castlingRights == other.castlingRights
+        && enPassantSquare == other.enPassantSquare
+        && java.util.Arrays.equals(pieces, other.pieces);
+  }
+
+  @Override
+  public int hashCode() {
+    return Long.hashCode(key);
+  }
+
+  /** Material balance in centipawns, positive when White is ahead. Kept incrementally. */
   public int evaluateMaterial() {
-    // functional-style summation via streams
-    return java.util.stream.IntStream.range(0, 8)
-        .map(
-            r ->
-                java.util.stream.IntStream.range(0, 8)
-                    .map(
-                        f -> {
-                          char p = getAt(f, r);
-                          int v;
-                          switch (Character.toLowerCase(p)) {
-                            case 'p':
-                              v = 100;
-                              break;
-                            case 'n':
-                              v = 320;
-                              break;
-                            case 'b':
-                              v = 330;
-                              break;
-                            case 'r':
-                              v = 500;
-                              break;
-                            case 'q':
-                              v = 900;
-                              break;
-                            case 'k':
-                              v = 0;
-                              break;
-                            default:
-                              v = 0;
-                          }
-                          if (isWhite(p)) return v;
-                          else if (isBlack(p)) return -v;
-                          else return 0;
-                        })
-                    .sum())
-        .sum();
+    assert material == computeMaterial() : "incremental material drifted";
+    return material;
+  }
+
+  /**
+   * Static evaluation in centipawns, positive when White is ahead: material plus piece-square
+   * bonuses (see PieceSquareTables). Kept incrementally by every move, so this is a field read.
+   */
+  public int evaluate() {
+    assert material + positional == computeEvaluation() : "incremental evaluation drifted";
+    return material + positional;
+  }
+
+  // Slow paths recomputing the evaluation terms from the bitboards; the incremental fields are
+  // checked against them in assertions (enabled in tests).
+  int computeMaterial() {
+    int score = 0;
+    for (int p = WHITE_PAWN; p <= BLACK_KING; p++) {
+      score += PIECE_VALUES[p] * Long.bitCount(pieces[p]);
+    }
+    return score;
+  }
+
+  int computeEvaluation() {
+    int score = computeMaterial();
+    for (int p = WHITE_PAWN; p <= BLACK_KING; p++) {
+      for (long bb = pieces[p]; bb != 0; bb &= bb - 1) {
+        score += PieceSquareTables.value(p, Long.numberOfTrailingZeros(bb));
+      }
+    }
+    return score;
   }
 }
@@ -0,0 +1,20 @@
+package org.example;
+
+import java.util.Optional;
+
+/**
+ * A player that chooses a move for the side to move within a time budget, under the simplified
+ * rules of ChessBoard (pseudo-legal moves; a game ends when a king is captured). Implemented by
+ * MonteCarloPlayer and AlphaBetaPlayer, so Main and MonteCarloMatch can use either.
+ */
+public interface ChessEngine {
+
+  /** The chosen move and the position after it. */
+  public static record MoveChoice(ChessBoard.SimpleMove move, ChessBoard resultingState) {}
+
+  /**
+   * Chooses a move for the given side after searching for about timeMs milliseconds; empty when the
+   * side has no moves. The board is not modified.
+   */
+  Optional<MoveChoice> chooseMove(ChessBoard board, boolean whiteToMove, long timeMs);
+}
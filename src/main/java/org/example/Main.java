@@ -1,20 +1,69 @@
 package org.example;
 
+import java.util.Arrays;
 import java.util.Scanner;
 
 /**
  * Simple CLI tool that accepts a chess move in standard algebraic notation and prints a
  * human-readable description, and (when legal from the initial position) renders a board
  * highlighting origin and destination squares.
+ *
+ * <p>In interactive mode Black is played by MonteCarloPlayer, or by AlphaBetaPlayer when the first
+ * argument is --engine=alphabeta.
  */
 public class Main {
+  private static final String ENGINE_FLAG = "--engine=";
+
   private static String coord(int file, int rank) {
     char f = (char) ('a' + file);
     char r = (char) ('1' + rank);
     return "" + f + r;
   }
 
+  // The engine's statistics for its last move, as printed after the move
+  private static String searchSummary(ChessEngine engine) {
+    if (engine instanceof AlphaBetaPlayer alphaBeta) {
+      AlphaBetaPlayer.SearchStats stats = alphaBeta.lastStats();
+      return "depth "
+          + stats.depth()
+          + ", "
+          + stats.nodes()
+          + " nodes, "
+          + stats.nodesPerSecond() / 1000
+          + "k nodes/s, hash "
+          + Math.round(100 * alphaBeta.table().hitRate())
+          + "% hits, "
+          + alphaBeta.table().fillPermille() / 10
+          + "% full";
+    }
+    MonteCarloPlayer.SearchStats stats = ((MonteCarloPlayer) engine).lastStats();
+    return stats.iterations()
+        + " iterations, "
+        + stats.reusedVisits()
+        + " visits reused, "
+        + stats.treeNodes()
+        + " nodes in "
+        + stats.treeBytes() / (1024 * 1024)
+        + " MB, "
+        + stats.savedMillis()
+        + " ms saved"
+        + (stats.ponder() == MonteCarloPlayer.Ponder.NONE
+            ? ""
+            : ", ponder " + stats.ponder().name().toLowerCase());
+  }
+
   public static void main(String[] args) {
+    // An optional --engine=mcts|alphabeta comes first; the remaining arguments are handled below
+    String engine = "mcts";
+    if (args != null && args.length > 0 && args[0].startsWith(ENGINE_FLAG)) {
+      engine = args[0].substring(ENGINE_FLAG.length());
+      args = Arrays.copyOfRange(args, 1, args.length);
+    }
+    if (!engine.equals("mcts") && !engine.equals("alphabeta")) {
+      System.out.println(
+          "Unknown engine '" + engine + "'; use --engine=mcts or --engine=alphabeta.");
+      return;
+    }
     // Launch GUI board (fits roughly half the screen) while still using CLI for moves
     ChessBoardGUI gui = ChessBoardGUI.launch();
     // If a move is provided as an arg, accept exactly one move from the initial position
@@ -50,6 +99,16 @@ public class Main {
     }
     // Interactive mode with persistent board and alternating turns
     Scanner scanner = new Scanner(System.in);
+    // One player for the whole game, so each MCTS search continues from the previous one's tree
+    // and alpha-beta keeps its transposition table; both search with every available core, and
+    // RAVE makes the most of MCTS's short time per move
+    int cores = Runtime.getRuntime().availableProcessors();
+    ChessEngine blackPlayer =
+        engine.equals("alphabeta")
+            ? new AlphaBetaPlayer(cores, 64)
+            : new MonteCarloPlayer(cores, System.nanoTime())
+                .withRave(MonteCarloPlayer.DEFAULT_RAVE_EQUIVALENCE);
+    String label = engine.equals("alphabeta") ? "alpha-beta" : "MCTS";
     ChessBoard board = ChessBoard.initial();
     gui.update(board);
     boolean whiteToMove = true;
@@ -70,26 +129,44 @@ public class Main {
                 board, res.fromFile(), res.fromRank(), res.toFile(), res.toRank()));
         gui.update(board, res.fromFile(), res.fromRank(), res.toFile(), res.toRank());
         whiteToMove = !whiteToMove;
-        // If it's now Black to move, let Black play using MCTS under simplified rules
+        // If it's now Black to move, let Black's engine play under simplified rules
         if (!whiteToMove) {
-          java.util.Optional<MonteCarloPlayer.MoveChoice> choice =
-              MonteCarloPlayer.chooseMove(board, false, 300);
+          java.util.Optional<ChessEngine.MoveChoice> choice =
+              blackPlayer.chooseMove(board, false, 300);
           if (choice.isPresent()) {
-            MonteCarloPlayer.MoveChoice mc = choice.get();
+            ChessEngine.MoveChoice mc = choice.get();
             ChessBoard.SimpleMove mv = mc.move();
             board = mc.resultingState();
             System.out.println(
-                "Black (MCTS) plays: "
+                "Black ("
+                    + label
+                    + ") plays: "
                     + coord(mv.fromFile(), mv.fromRank())
                     + "-"
-                    + coord(mv.toFile(), mv.toRank()));
+                    + coord(mv.toFile(), mv.toRank())
+                    + " ("
+                    + searchSummary(blackPlayer)
+                    + ")");
             System.out.println(
                 ChessBoardRenderer.render(
                     board, mv.fromFile(), mv.fromRank(), mv.toFile(), mv.toRank()));
             gui.update(board, mv.fromFile(), mv.fromRank(), mv.toFile(), mv.toRank());
+            // Think on White's expected reply while White thinks
+            if (blackPlayer instanceof MonteCarloPlayer mcts) {
+              mcts.ponder()
+                  .ifPresent(
+                      r ->
+                          System.out.println(
+                              "Black ponders on "
+                                  + coord(r.fromFile(), r.fromRank())
+                                  + "-"
+                                  + coord(r.toFile(), r.toRank())));
+            }
           } else {
             System.out.println(
-                "Black (MCTS) has no legal simplified moves. Waiting for White's next input.");
+                "Black ("
+                    + label
+                    + ") has no legal simplified moves. Waiting for White's next input.");
           }
           whiteToMove = true; // return turn to White
         }
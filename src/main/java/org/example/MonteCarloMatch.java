@@ -0,0 +1,142 @@
+package org.example;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+/**
+ * Plays engine configurations (MonteCarloPlayer settings, or MCTS against AlphaBetaPlayer) against
+ * each other with the same wall-clock time per move, to compare playing strength rather than raw
+ * search speed. Games start from a few opening positions with colors swapped, end when a king is
+ * captured or a side has no moves, and are adjudicated by the static evaluation after a ply limit
+ * (the simplified rules have no checkmate or draw detection).
+ */
+public final class MonteCarloMatch {
+  // Evaluation margin, in centipawns, needed to score an adjudicated game as a win
+  private static final int ADJUDICATION_MARGIN = 200;
+
+  static final List<String> OPENINGS =
+      List.of(
+          ChessBoard.INITIAL_FEN,
+          "r1bqk1nr/pppp1ppp/2n5/2b1p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+          "rnbqkb1r/pp2pppp/3p1n2/8/3NP3/8/PPP2PPP/RNBQKB1R w KQkq - 1 5",
+          "rnbqkbnr/pp2pppp/2p5/3p4/2PP4/8/PP2PPPP/RNBQKBNR w KQkq - 0 3");
+
+  private MonteCarloMatch() {}
+
+  /** Match result from the first configuration's point of view. */
+  public static record Score(int wins, int draws, int losses) {
+    public double points() {
+      return wins + 0.5 * draws;
+    }
+
+    /** Elo difference implied by the score fraction (infinite for a whitewash). */
+    public double eloDifference() {
+      double fraction = points() / (wins + draws + losses);
+      return -400 * Math.log10(1 / fraction - 1);
+    }
+  }
+
+  /**
+   * Plays two games per opening, one with each color, between fresh players from the two suppliers.
+   */
+  public static Score match(
+      Supplier<? extends ChessEngine> first,
+      Supplier<? extends ChessEngine> second,
+      List<String> openings,
+      long moveMillis,
+      int maxPlies) {
+    int wins = 0;
+    int draws = 0;
+    int losses = 0;
+    for (String fen : openings) {
+      for (int firstIsWhite = 0; firstIsWhite < 2; firstIsWhite++) {
+        ChessEngine a = first.get();
+        ChessEngine b = second.get();
+        boolean aWhite = firstIsWhite == 1;
+        int result =
+            playGame(ChessBoard.fromFen(fen), aWhite ? a : b, aWhite ? b : a, moveMillis, maxPlies);
+        int forFirst = aWhite ? result : -result;
+        if (forFirst > 0) {
+          wins++;
+        } else if (forFirst < 0) {
+          losses++;
+        } else {
+          draws++;
+        }
+      }
+    }
+    return new Score(wins, draws, losses);
+  }
+
+  /** One game: +1 when White wins, -1 when Black wins, 0 for a draw. */
+  static int playGame(
+      ChessBoard board, ChessEngine white, ChessEngine black, long moveMillis, int plies) {
+    for (int ply = 0; ply < plies; ply++) {
+      if (board.pieceCount(ChessBoard.WHITE_KING) == 0) return -1;
+      if (board.pieceCount(ChessBoard.BLACK_KING) == 0) return 1;
+      boolean whiteToMove = board.whiteToMove();
+      Optional<ChessEngine.MoveChoice> choice =
+          (whiteToMove ? white : black).chooseMove(board, whiteToMove, moveMillis);
+      if (choice.isEmpty()) return 0;
+      board = choice.get().resultingState();
+    }
+    int eval = board.evaluate();
+    if (eval > ADJUDICATION_MARGIN) return 1;
+    if (eval < -ADJUDICATION_MARGIN) return -1;
+    return 0;
+  }
+
+  /**
+   * Root-parallel and tree-parallel players versus a single-threaded one, and the Lazy SMP
+   * alpha-beta player versus the tree-parallel one, at equal threads and time per move. Optional
+   * arguments: threads (default: available processors), milliseconds per move (default 200), ply
+   * limit (default 60).
+   */
+  public static void main(String[] args) {
+    int threads = args.length > 0 ? Integer.parseInt(args[0]) : availableProcessors();
+    long moveMillis = args.length > 1 ? Long.parseLong(args[1]) : 200;
+    int plies = args.length > 2 ? Integer.parseInt(args[2]) : 60;
+    long seed = System.nanoTime();
+    report(
+        "root-parallel x" + threads + " vs single",
+        match(
+            () -> MonteCarloPlayer.rootParallel(threads, seed),
+            () -> new MonteCarloPlayer(seed + 1),
+            OPENINGS,
+            moveMillis,
+            plies));
+    report(
+        "tree-parallel x" + threads + " vs single",
+        match(
+            () -> new MonteCarloPlayer(threads, seed),
+            () -> new MonteCarloPlayer(seed + 1),
+            OPENINGS,
+            moveMillis,
+            plies));
+    report(
+        "alpha-beta vs tree-parallel x" + threads,
+        match(
+            () -> new AlphaBetaPlayer(threads, 64),
+            () -> new MonteCarloPlayer(threads, seed),
+            OPENINGS,
+            moveMillis,
+            plies));
+  }
+
+  private static int availableProcessors() {
+    return Runtime.getRuntime().availableProcessors();
+  }
+
+  private static void report(String label, Score s) {
+    System.out.printf(
+        "%-32s +%d =%d -%d  %.1f/%d  Elo %+.0f%n",
+        label,
+        s.wins(),
+        s.draws(),
+        s.losses(),
+        s.points(),
+        s.wins() + s.draws() + s.losses(),
+        s.eloDifference());
+  }
+}
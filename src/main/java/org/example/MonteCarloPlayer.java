@@ -1,136 +1,800 @@
 package org.example;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 /**
- * Very small Monte Carlo Tree Search player using simplified move rules from ChessBoard. - No draw
- * or check/checkmate detection. - Uses only simple moves (pawns: pushes + diagonal captures,
- * knights: all incl. captures). - Rollouts are random with fixed depth. Evaluation is material
- * balance. - Designed to pick a move for the side to move; used for Black in this project.
+ * Monte Carlo Tree Search player using the simplified move rules of ChessBoard: the pseudo-legal
+ * moves of generateMoves, without draw or checkmate detection. Each iteration walks the tree by
+ * UCT, scores a new leaf with a short random rollout (or a quiescence search, see withQuiescence)
+ * evaluated by ChessBoard.evaluate, and backs the result up; the most visited root move is played.
+ * Used for Black in this project.
+ *
+ * <p>A player keeps its tree between moves and reuses the part that covers the next position. It
+ * can search one shared tree with several threads or independent trees per thread (rootParallel),
+ * and supports RAVE (withRave), a node budget (withNodeBudget) and pondering (ponder).
+ * Fixed-iteration searches of a seeded single-threaded or root-parallel player are reproducible.
  */
-public class MonteCarloPlayer {
+public class MonteCarloPlayer implements ChessEngine {
 
   private static final double EXPLORATION = Math.sqrt(2.0);
   private static final int ROLLOUT_PLIES = 24; // 12 moves per side max in a rollout
+  // Result of a leaf whose side to move can capture the king, when scored by quiescence
+  private static final int KING_CAPTURE_RESULT = 3000;
+  // Deadline checks aim for this interval; the iterations between checks adapt to the rate
+  private static final long CHECK_INTERVAL_NANOS = 500_000;
+  private static final int MAX_CHECK_EVERY = 1 << 12;
+  // Centipawns charged to a node per worker currently searching below it
+  private static final long VIRTUAL_LOSS = 1000;
+  // Default node budget per player, split between the trees of a root-parallel player, and edge
+  // slots per node. Arenas start at the size a search needs and grow up to the budget as trees
+  // are reused.
+  private static final int DEFAULT_NODE_BUDGET = 1 << 18;
+  private static final int EDGES_PER_NODE = 8;
+  private static final int MIN_EDGES = 256; // room for the root's moves in a tiny arena
+  private static final int MIN_NODE_BUDGET = 1024; // per tree, so pruning leaves room to search
 
-  private static class Node {
-    final ChessBoard state;
-    final boolean whiteToMove;
-    final ChessBoard.SimpleMove moveFromParent; // null for root
-    final Node parent;
-    List<ChessBoard.SimpleMove> untriedMoves;
-    final List<Node> children = new ArrayList<>();
-    int visits = 0;
-    double valueSum = 0.0; // from perspective of root player (the side to move at root)
-
-    Node(ChessBoard state, boolean whiteToMove, ChessBoard.SimpleMove moveFromParent, Node parent) {
-      this.state = state;
-      this.whiteToMove = whiteToMove;
-      this.moveFromParent = moveFromParent;
-      this.parent = parent;
-      this.untriedMoves = new ArrayList<>(state.generateSimpleMoves(whiteToMove));
-    }
-
-    boolean isTerminal() {
-      return untriedMoves.isEmpty() && children.isEmpty();
-    }
-
-    boolean isFullyExpanded() {
-      return untriedMoves.isEmpty();
-    }
-
-    Node expand(Random rng) {
-      if (untriedMoves.isEmpty()) return this;
-      int idx = rng.nextInt(untriedMoves.size());
-      ChessBoard.SimpleMove mv = untriedMoves.remove(idx);
-      ChessBoard next = state.apply(mv);
-      Node child = new Node(next, !whiteToMove, mv, this);
-      children.add(child);
-      return child;
-    }
-
-    Node bestUCT(double exploration, boolean rootWhite) {
-      Node best = null;
-      double bestScore = Double.NEGATIVE_INFINITY;
-      for (Node c : children) {
-        double mean = (c.visits == 0) ? 0.0 : (c.valueSum / c.visits);
-        double uct =
-            mean
-                + exploration
-                    * Math.sqrt(Math.log(Math.max(1, this.visits)) / Math.max(1, c.visits));
-        if (uct > bestScore) {
-          bestScore = uct;
-          best = c;
+  /** RAVE equivalence that did best in MonteCarloQuality at a few hundred iterations. */
+  public static final double DEFAULT_RAVE_EQUIVALENCE = 300;
+  // Moves indexed by origin and destination for AMAF matching, one table per side
+  private static final int MOVE_SQUARES = 1 << 12;
+
+  /** Whether a search followed pondering, and whether the opponent played the predicted reply. */
+  public enum Ponder {
+    NONE,
+    HIT,
+    MISS
+  }
+
+  /** Work done by the most recent search. */
+  public static record SearchStats(
+      int iterations,
+      int reusedVisits,
+      int rootVisits,
+      int transpositions,
+      int treeNodes,
+      long treeBytes,
+      int prunings,
+      long millis,
+      long savedMillis,
+      Ponder ponder) {}
+
+  // One search tree: its arena, the spare arena that reuse compacts into, and the root position
+  // with the side to move there (rootBoard is null while there is no tree to reuse).
+  // Workers hold the read lock while they search and give it up between iterations once the arena
+  // is full, so that pruning can take the write lock.
+  private static final class Tree {
+    final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    int nodeCapacity;
+    boolean amaf;
+    boolean quiescence; // score leaves by quiescence search instead of rollouts
+    NodeArena arena;
+    NodeArena spare;
+    ChessBoard rootBoard;
+    boolean rootWhite;
+    int root = NodeArena.NONE;
+    volatile boolean full;
+    volatile boolean settled; // the root choice can no longer change in the time left
+    volatile boolean stopped; // set to end a ponder search
+    int prunings; // in the current search
+    // Iterations claimed by the tree's workers in the current search, up to limit
+    final AtomicInteger claimed = new AtomicInteger();
+    int limit;
+
+    Tree(int nodeCapacity) {
+      this.nodeCapacity = nodeCapacity;
+    }
+
+    NodeArena newArena(int nodes) {
+      return new NodeArena(nodes, Math.max(MIN_EDGES, nodes * EDGES_PER_NODE), amaf);
+    }
+  }
+
+  // Per-thread scratch state, kept across searches.
+  private static final class Worker {
+    final ChessBoard board = new ChessBoard();
+    final MoveList moves = new MoveList();
+    final Quiescence quiescence = new Quiescence();
+    final StaticExchange exchange = new StaticExchange();
+    int[] path = new int[64]; // node handles from the root down, for backpropagation
+    // Moves of the current iteration (tree walk, then rollout) for the AMAF update
+    int[] played = new int[64 + ROLLOUT_PLIES];
+    int playedCount;
+    // Last ply at which each side played each move, valid where seenStamp equals stamp
+    final int[] seenStamp = new int[2 * MOVE_SQUARES];
+    final int[] seenPly = new int[2 * MOVE_SQUARES];
+    int stamp;
+    SplittableRandom rng;
+  }
+
+  private final SplittableRandom rng;
+  private final int threads;
+  // One shared tree, or one tree per thread for root parallelism
+  private final Tree[] trees;
+  private final Worker[] workers;
+  private double raveEquivalence;
+  private SearchStats lastStats = new SearchStats(0, 0, 0, 0, 0, 0, 0, 0, 0, Ponder.NONE);
+  // Position after the last chosen move and the reply the tree expects to it, or null
+  private ChessBoard predictedBoard;
+  private int predictedReply = Move.NONE;
+  // The running ponder search, its position and side to move, and when it started
+  private Thread ponderThread;
+  private ChessBoard ponderBoard;
+  private boolean ponderWhite;
+  private long ponderStart;
+
+  public MonteCarloPlayer() {
+    this(1, false, new SplittableRandom());
+  }
+
+  /** Player with a seeded RNG, so a sequence of fixed-iteration searches is reproducible. */
+  public MonteCarloPlayer(long seed) {
+    this(1, false, new SplittableRandom(seed));
+  }
+
+  /**
+   * Player searching one shared tree with the given number of threads (the caller's thread plus
+   * threads - 1 helpers per search). Node statistics are updated with atomic adds and expansion is
+   * claimed per node with a CAS; each worker adds a virtual loss to every node it passes on the way
+   * down and removes it when it backs up the result, so that concurrent workers spread over
+   * different lines instead of all following the current best one. Worker RNGs are derived from
+   * seed; with more than one thread the outcome also depends on scheduling, so only the
+   * single-threaded search is reproducible.
+   */
+  public MonteCarloPlayer(int threads, long seed) {
+    this(threads, false, new SplittableRandom(seed));
+  }
+
+  /**
+   * Player running the given number of independent searches in parallel, one tree, RNG and share of
+   * the iterations per thread. No state is shared between the threads while they search; at the end
+   * the root children's visits and values are summed per move across the trees and the most visited
+   * move is chosen from the merged counts.
+   */
+  public static MonteCarloPlayer rootParallel(int threads, long seed) {
+    return new MonteCarloPlayer(threads, true, new SplittableRandom(seed));
+  }
+
+  private MonteCarloPlayer(int threads, boolean independentTrees, SplittableRandom rng) {
+    if (threads < 1) throw new IllegalArgumentException("threads must be >= 1");
+    this.threads = threads;
+    this.rng = rng;
+    trees = new Tree[independentTrees ? threads : 1];
+    for (int t = 0; t < trees.length; t++) {
+      trees[t] = new Tree(DEFAULT_NODE_BUDGET / trees.length);
+    }
+    workers = new Worker[threads];
+    for (int i = 0; i < threads; i++) {
+      workers[i] = new Worker();
+    }
+    workers[0].rng = rng; // the caller's thread; helpers get RNGs split from it per search
+  }
+
+  /**
+   * Enables RAVE with the given equivalence parameter k, or turns it off for k = 0. Every iteration
+   * then also credits its result to the all-moves-as-first (AMAF) statistics of each edge on its
+   * path whose move the same side played at that point or later in the iteration. An edge with n
+   * visits weighs its AMAF value by beta = sqrt(k / (3n + k)) and its own value by 1 - beta, so the
+   * two count equally at n = k; larger k trusts AMAF for longer. Drops the retained tree. Returns
+   * this player.
+   */
+  public MonteCarloPlayer withRave(double equivalence) {
+    if (equivalence < 0) throw new IllegalArgumentException("equivalence must be >= 0");
+    stopPondering();
+    raveEquivalence = equivalence;
+    for (Tree tree : trees) {
+      tree.amaf = equivalence > 0;
+      tree.arena = null;
+      tree.spare = null;
+      tree.rootBoard = null;
+    }
+    return this;
+  }
+
+  /**
+   * Scores new leaves with a capture-only Quiescence search instead of a random rollout when
+   * enabled (off by default): a short, deterministic simulation that resolves the exchanges in
+   * progress before evaluating. Drops the retained tree. Returns this player.
+   */
+  public MonteCarloPlayer withQuiescence(boolean enabled) {
+    stopPondering();
+    for (Tree tree : trees) {
+      tree.quiescence = enabled;
+      tree.arena = null;
+      tree.spare = null;
+      tree.rootBoard = null;
+    }
+    return this;
+  }
+
+  /**
+   * Limits the tree to the given number of nodes (split evenly between the trees of a root-parallel
+   * player); NodeArena.NODE_BYTES (30) per node plus EDGE_BYTES (12) per edge slot, AMAF_EDGE_BYTES
+   * (12) more per edge slot with RAVE, for each of the two arenas a tree keeps. When the arena
+   * fills up during a search, the tree is compacted, keeping only the subtrees under often visited
+   * nodes, and the search goes on; pruned nodes keep their own statistics and are re-expanded when
+   * reached again. Drops the retained tree. Returns this player.
+   */
+  public MonteCarloPlayer withNodeBudget(int nodes) {
+    if (nodes / trees.length < MIN_NODE_BUDGET) {
+      throw new IllegalArgumentException("node budget below " + MIN_NODE_BUDGET + " per tree");
+    }
+    stopPondering();
+    for (Tree tree : trees) {
+      tree.nodeCapacity = nodes / trees.length;
+      tree.arena = null;
+      tree.spare = null;
+      tree.rootBoard = null;
+    }
+    return this;
+  }
+
+  /**
+   * Searches for about timeMs milliseconds, reusing the retained tree when it covers board. After a
+   * ponder hit the time spent pondering is deducted, down to the 10 ms minimum. A search on one
+   * tree stops early once the most visited root move leads the runner-up by more visits than the
+   * rest of the time can add at the measured rate, since the choice can then no longer change;
+   * lastStats reports the time saved.
+   */
+  @Override
+  public Optional<MoveChoice> chooseMove(ChessBoard board, boolean whiteToMove, long timeMs) {
+    long timeNanos = Math.max(10, timeMs) * 1_000_000;
+    long ponderStarted = ponderStart;
+    Ponder ponder = endPondering(board, whiteToMove);
+    if (ponder == Ponder.HIT) {
+      timeNanos = Math.max(10_000_000, timeNanos - (System.nanoTime() - ponderStarted));
+    }
+    return search(board, whiteToMove, timeNanos, Integer.MAX_VALUE, ponder);
+  }
+
+  /**
+   * Runs exactly the given number of iterations instead of searching until a deadline, so results
+   * and timings are reproducible (benchmarks, tests). Reuses the retained tree like chooseMove.
+   */
+  public Optional<MoveChoice> chooseMoveFixedIterations(
+      ChessBoard board, boolean whiteToMove, int iterations) {
+    Ponder ponder = endPondering(board, whiteToMove);
+    return search(board, whiteToMove, Long.MAX_VALUE, iterations, ponder);
+  }
+
+  /** One-off fixed-iteration search with a fresh player and tree. */
+  public static Optional<MoveChoice> chooseMoveFixedIterations(
+      ChessBoard board, boolean whiteToMove, int iterations, long seed) {
+    return new MonteCarloPlayer(seed).chooseMoveFixedIterations(board, whiteToMove, iterations);
+  }
+
+  /**
+   * Statistics of the last search: root visits inherited from the previous search, edges of the
+   * final tree leading to a node shared with another edge, live tree nodes, bytes held by the
+   * arenas and how often the tree was pruned to stay within the node budget.
+   */
+  public SearchStats lastStats() {
+    return lastStats;
+  }
+
+  /**
+   * Starts searching, on a background thread, the position after the opponent's reply to the last
+   * chosen move that the tree expects (the most visited edge below that move), and returns that
+   * reply; empty (and no search) when the last search made no prediction. The search runs until the
+   * next search or stopPondering. If the opponent played that reply (a ponder hit), the next search
+   * continues from the ponder tree, else the ponder tree is dropped.
+   */
+  public Optional<ChessBoard.SimpleMove> ponder() {
+    stopPondering();
+    if (predictedBoard == null) return Optional.empty();
+    ponderBoard = predictedBoard;
+    ponderWhite = trees[0].rootWhite;
+    ponderStart = System.nanoTime();
+    ponderThread =
+        new Thread(
+            () -> search(ponderBoard, ponderWhite, Long.MAX_VALUE, Integer.MAX_VALUE, Ponder.NONE),
+            "mcts-ponder");
+    ponderThread.setDaemon(true);
+    ponderThread.start();
+    return Optional.of(Move.toSimpleMove(predictedReply));
+  }
+
+  /** Stops a running ponder search and waits for it; its tree is kept for reuse. */
+  public void stopPondering() {
+    if (ponderThread == null) return;
+    for (Tree tree : trees) {
+      tree.stopped = true;
+    }
+    try {
+      ponderThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    for (Tree tree : trees) {
+      tree.stopped = false;
+    }
+    ponderThread = null;
+  }
+
+  // Stops pondering before a search of board: a hit when the ponder search was on that position,
+  // else a miss, whose tree is dropped.
+  private Ponder endPondering(ChessBoard board, boolean whiteToMove) {
+    if (ponderThread == null) return Ponder.NONE;
+    stopPondering();
+    if (ponderWhite == whiteToMove && ponderBoard.equals(board)) return Ponder.HIT;
+    clearTree();
+    return Ponder.MISS;
+  }
+
+  /** Drops the retained tree, e.g. when a new game starts. The arenas are kept for reuse. */
+  public void clearTree() {
+    stopPondering();
+    for (Tree tree : trees) {
+      tree.rootBoard = null;
+    }
+  }
+
+  // Searches until timeNanos have passed (Long.MAX_VALUE: no limit) or maxIterations are done.
+  private Optional<MoveChoice> search(
+      ChessBoard board, boolean whiteToMove, long timeNanos, int maxIterations, Ponder ponder) {
+    long start = System.nanoTime();
+    int reused = 0;
+    for (int t = 0; t < trees.length; t++) {
+      Tree tree = trees[t];
+      reused += prepareRoot(tree, board, whiteToMove, maxIterations, workers[0]);
+      tree.full = false;
+      tree.settled = false;
+      tree.prunings = 0;
+      tree.claimed.set(0);
+      // Independent trees split the budget, so each runs a fixed share whatever the scheduling
+      tree.limit =
+          maxIterations == Integer.MAX_VALUE
+              ? maxIterations
+              : maxIterations / trees.length + (t < maxIterations % trees.length ? 1 : 0);
+    }
+    Tree first = trees[0];
+    if (first.arena.edgeCount[first.root] == 0) {
+      lastStats = new SearchStats(0, reused, reused, 0, 1, 0, 0, 0, 0, ponder);
+      predictedBoard = null;
+      return Optional.empty();
+    }
+
+    boolean earlyStop = timeNanos != Long.MAX_VALUE && trees.length == 1;
+    Thread[] helpers = new Thread[threads - 1];
+    for (int i = 0; i < helpers.length; i++) {
+      Worker worker = workers[i + 1];
+      worker.rng = rng.split();
+      Tree tree = trees[trees.length == 1 ? 0 : i + 1];
+      helpers[i] =
+          new Thread(
+              () -> runIterations(tree, start, timeNanos, earlyStop, worker, raveEquivalence),
+              "mcts-worker-" + (i + 1));
+      helpers[i].setDaemon(true);
+      helpers[i].start();
+    }
+    runIterations(first, start, timeNanos, earlyStop, workers[0], raveEquivalence);
+    for (Thread helper : helpers) {
+      try {
+        helper.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        break;
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+    int iterations = 0;
+    int rootVisits = 0;
+    int transpositions = 0;
+    int treeNodes = 0;
+    long treeBytes = 0;
+    int prunings = 0;
+    for (Tree tree : trees) {
+      iterations += Math.min(tree.claimed.get(), tree.limit);
+      rootVisits += tree.arena.visits.get(tree.root);
+      transpositions += tree.arena.transpositions();
+      treeNodes += tree.arena.nodeCount();
+      treeBytes += tree.arena.bytes() + (tree.spare == null ? 0 : tree.spare.bytes());
+      prunings += tree.prunings;
+    }
+    lastStats =
+        new SearchStats(
+            iterations,
+            reused,
+            rootVisits,
+            transpositions,
+            treeNodes,
+            treeBytes,
+            prunings,
+            elapsed / 1_000_000,
+            first.settled ? Math.max(0, timeNanos - elapsed) / 1_000_000 : 0,
+            ponder);
+
+    // Merge the root children of all trees by move, then choose the move with the highest total
+    // visit count (robust child); ties go to the higher total value
+    Map<Integer, long[]> merged = new LinkedHashMap<>();
+    for (Tree tree : trees) {
+      NodeArena a = tree.arena;
+      int firstEdge = a.firstEdge.get(tree.root);
+      for (int e = firstEdge; e < firstEdge + a.edgeCount[tree.root]; e++) {
+        int child = a.edgeChild.get(e);
+        if (child == NodeArena.NONE) continue;
+        long[] stats = merged.computeIfAbsent(a.edgeMove[e], m -> new long[2]);
+        stats[0] += a.visits.get(child);
+        stats[1] += a.valueSum.get(child);
+      }
+    }
+    int best = Move.NONE;
+    long[] bestStats = null;
+    for (Map.Entry<Integer, long[]> e : merged.entrySet()) {
+      long[] stats = e.getValue();
+      if (bestStats == null
+          || stats[0] > bestStats[0]
+          || (stats[0] == bestStats[0] && stats[1] > bestStats[1])) {
+        best = e.getKey();
+        bestStats = stats;
+      }
+    }
+    predictedBoard = null;
+    if (bestStats == null) return Optional.empty();
+    ChessBoard after = first.rootBoard.apply(best);
+    predictedReply = predictReply(first, best);
+    if (predictedReply != Move.NONE) predictedBoard = after.apply(predictedReply);
+    return Optional.of(new MoveChoice(Move.toSimpleMove(best), after));
+  }
+
+  // The most visited reply below the root edge for move, or Move.NONE when it has none.
+  private static int predictReply(Tree tree, int move) {
+    NodeArena a = tree.arena;
+    int first = a.firstEdge.get(tree.root);
+    for (int e = first; e < first + a.edgeCount[tree.root]; e++) {
+      int child = a.edgeChild.get(e);
+      if (a.edgeMove[e] != move || child == NodeArena.NONE) continue;
+      int reply = Move.NONE;
+      int replyVisits = 0;
+      int childFirst = a.firstEdge.get(child);
+      for (int r = childFirst; r >= 0 && r < childFirst + a.edgeCount[child]; r++) {
+        if (a.edgeVisits.get(r) > replyVisits) {
+          reply = a.edgeMove[r];
+          replyVisits = a.edgeVisits.get(r);
+        }
+      }
+      return reply;
+    }
+    return Move.NONE;
+  }
+
+  // Points the tree at board: keeps the retained node for the position (normally the grandchild
+  // reached by our move and the opponent's reply), compacting its subtree into the spare arena with
+  // its statistics intact unless it already is the root and the arena has room for the search, or
+  // starts a fresh root; then expands the root. An iteration adds at most one node, so a search
+  // needs room for iterations more nodes. Returns the visits the root starts with.
+  private static int prepareRoot(
+      Tree tree, ChessBoard board, boolean whiteToMove, int iterations, Worker w) {
+    int found =
+        tree.arena == null ? NodeArena.NONE : reusableNode(tree, board, whiteToMove, w.board);
+    int kept = found == NodeArena.NONE ? 0 : tree.arena.nodeCount();
+    int needed = (int) Math.min(tree.nodeCapacity, (long) kept + iterations + 1);
+    if (found == NodeArena.NONE) {
+      if (tree.arena == null || tree.arena.nodeCapacity < needed) {
+        tree.arena = tree.newArena(needed);
+      }
+      tree.arena.clear();
+      tree.root = tree.arena.newNode(positionKey(board));
+    } else if (found != tree.root || tree.arena.nodeCapacity < needed) {
+      if (tree.spare == null || tree.spare.nodeCapacity < needed) {
+        // Grow geometrically, so a player reused for many searches reallocates rarely
+        int nodes = Math.max(needed, Math.min(tree.nodeCapacity, 2 * tree.arena.nodeCapacity));
+        tree.spare = tree.newArena(nodes);
+      }
+      tree.arena.copySubtree(found, tree.spare);
+      NodeArena old = tree.arena;
+      tree.arena = tree.spare;
+      tree.spare = old;
+      tree.root = 0;
+    }
+    tree.rootBoard = board.copy();
+    tree.rootWhite = whiteToMove;
+    if (tree.arena.firstEdge.get(tree.root) == NodeArena.LEAF) {
+      board.generateMoves(whiteToMove, w.moves);
+      w.moves.shuffle(w.rng);
+      tree.arena.expand(tree.root, w.moves);
+    }
+    return tree.arena.visits.get(tree.root);
+  }
+
+  // The retained node for this position: the root, one of its children or one of their children
+  // (our move followed by the opponent's reply); NONE when the tree does not cover it. Candidate
+  // positions are rebuilt on the scratch board.
+  private static int reusableNode(
+      Tree tree, ChessBoard board, boolean whiteToMove, ChessBoard scratch) {
+    if (tree.rootBoard == null) return NodeArena.NONE;
+    if (tree.rootWhite == whiteToMove && tree.rootBoard.equals(board)) return tree.root;
+    NodeArena a = tree.arena;
+    int first = a.firstEdge.get(tree.root);
+    for (int e = first; e >= 0 && e < first + a.edgeCount[tree.root]; e++) {
+      int child = a.edgeChild.get(e);
+      if (child == NodeArena.NONE) continue;
+      scratch.copyFrom(tree.rootBoard);
+      scratch.makeMove(a.edgeMove[e]);
+      if (tree.rootWhite != whiteToMove && scratch.equals(board)) return child;
+      int childFirst = a.firstEdge.get(child);
+      for (int g = childFirst; g >= 0 && g < childFirst + a.edgeCount[child]; g++) {
+        int grandchild = a.edgeChild.get(g);
+        if (grandchild == NodeArena.NONE) continue;
+        scratch.makeMove(a.edgeMove[g]);
+        if (tree.rootWhite == whiteToMove && scratch.equals(board)) return grandchild;
+        scratch.unmakeMove();
+      }
+    }
+    return NodeArena.NONE;
+  }
+
+  // One worker's loop; iterations are claimed from the tree's counter so that its workers together
+  // run exactly its limit, unless timeNanos pass first or, with earlyStop, the root choice is
+  // settled. The clock is read every checkEvery iterations, scaled after each check to the time the
+  // last batch took, so that checks come about every CHECK_INTERVAL_NANOS.
+  private static void runIterations(
+      Tree tree, long start, long timeNanos, boolean earlyStop, Worker w, double rave) {
+    ReentrantReadWriteLock.ReadLock searching = tree.lock.readLock();
+    searching.lock();
+    try {
+      int checkEvery = 1;
+      int sinceCheck = 0;
+      long lastCheck = start;
+      while (!tree.settled && !tree.stopped && tree.claimed.getAndIncrement() < tree.limit) {
+        if (tree.full) {
+          searching.unlock();
+          try {
+            prune(tree);
+          } finally {
+            searching.lock();
+          }
+        }
+        iterate(tree, w, rave);
+        if (++sinceCheck == checkEvery) {
+          long now = System.nanoTime();
+          if (now - start >= timeNanos) break;
+          if (earlyStop && settled(tree, now - start, timeNanos)) {
+            tree.settled = true;
+            break;
+          }
+          long perIteration = Math.max(1, (now - lastCheck) / sinceCheck);
+          checkEvery = (int) Math.min(MAX_CHECK_EVERY, CHECK_INTERVAL_NANOS / perIteration + 1);
+          sinceCheck = 0;
+          lastCheck = now;
         }
       }
-      return best;
+    } finally {
+      searching.unlock();
     }
+  }
 
-    void backpropagate(double result) {
-      Node n = this;
-      while (n != null) {
-        n.visits++;
-        n.valueSum += result;
-        n = n.parent;
-        // Flip perspective for the opponent at each level
-        result = -result;
+  // One selection, expansion, simulation (rollout or quiescence) and backpropagation. Positions are
+  // not stored in the tree but rebuilt by replaying the edge moves from the root on the worker's
+  // scratch board, so an iteration allocates nothing. A node's edges are created on its second
+  // visit (the first one simulates from it), and the node behind an edge the first time the edge is
+  // chosen. Flags the tree as full when the arena has no room for a node or edges it needed.
+  private static void iterate(Tree tree, Worker w, double rave) {
+    NodeArena a = tree.arena;
+    ChessBoard board = w.board;
+    board.copyFrom(tree.rootBoard);
+    boolean side = tree.rootWhite;
+    int node = tree.root;
+    int depth = 0;
+    w.path[0] = node;
+    addVirtualLoss(a, node);
+    // Selection and expansion: descend until a node visited for the first time, a terminal
+    // node, or a node that cannot be expanded yet
+    while (true) {
+      int first = a.firstEdge.get(node);
+      if (first == NodeArena.LEAF) {
+        board.generateMoves(side, w.moves);
+        w.moves.shuffle(w.rng);
+        first = a.expand(node, w.moves);
+      }
+      if (first == NodeArena.UNEXPANDABLE) tree.full = true;
+      if (first < 0 || a.edgeCount[node] == 0) break;
+      int edge = selectEdge(a, node, first, rave);
+      w.played[depth] = a.edgeMove[edge];
+      board.makeMove(a.edgeMove[edge]);
+      int child = a.child(edge, positionKey(board));
+      if (child == NodeArena.NONE) {
+        tree.full = true;
+        board.unmakeMove(); // roll out from this node
+        break;
       }
+      a.edgeVisits.getAndIncrement(edge);
+      side = !side;
+      node = child;
+      if (++depth == w.path.length) {
+        w.path = Arrays.copyOf(w.path, depth * 2);
+        w.played = Arrays.copyOf(w.played, depth * 2 + ROLLOUT_PLIES);
+      }
+      w.path[depth] = node;
+      if (addVirtualLoss(a, node) == 0) break;
     }
+    // Simulation
+    int result =
+        tree.quiescence ? quiesce(board, side, w, depth) : rollout(board, side, w, depth);
+    // Backpropagation
+    backpropagate(a, w.path, depth, tree.rootWhite, result);
+    if (a.amafVisits != null) updateAmaf(a, w, depth, tree.rootWhite, result);
   }
 
-  public static Optional<MoveChoice> chooseMove(
-      ChessBoard board, boolean whiteToMove, long timeMs) {
-    long end = System.currentTimeMillis() + Math.max(10, timeMs);
-    Random rng = new Random();
-    Node root = new Node(board, whiteToMove, null, null);
-    boolean rootWhite = whiteToMove;
+  // True when the root has a single move, or when its most visited edge leads the runner-up by
+  // more visits than the tree's workers can add in the remaining time at their rate so far.
+  private static boolean settled(Tree tree, long elapsed, long timeNanos) {
+    NodeArena a = tree.arena;
+    int first = a.firstEdge.get(tree.root);
+    int count = a.edgeCount[tree.root];
+    if (count == 1) return true;
+    int best = 0;
+    int second = 0;
+    for (int e = first; e < first + count; e++) {
+      int n = a.edgeVisits.get(e);
+      if (n > best) {
+        second = best;
+        best = n;
+      } else if (n > second) {
+        second = n;
+      }
+    }
+    double remaining = (double) tree.claimed.get() * (timeNanos - elapsed) / elapsed;
+    return best - second > remaining;
+  }
 
-    if (root.untriedMoves.isEmpty()) return Optional.empty();
+  // Compacts a full tree into the spare arena, keeping subtrees only under nodes with at least a
+  // cutoff number of visits, doubled from 2 until the copy fills at most half the arena. Runs under
+  // the write lock, so no iteration is in progress; the first worker to get here prunes.
+  private static void prune(Tree tree) {
+    tree.lock.writeLock().lock();
+    try {
+      if (!tree.full) return;
+      NodeArena a = tree.arena;
+      if (tree.spare == null || tree.spare.nodeCapacity < a.nodeCapacity) {
+        tree.spare = tree.newArena(a.nodeCapacity);
+      }
+      NodeArena target = tree.spare;
+      int rootVisits = a.visits.get(tree.root);
+      for (int minVisits = 2; ; minVisits *= 2) {
+        a.copySubtree(tree.root, target, minVisits);
+        boolean fits =
+            target.nodeCount() <= target.nodeCapacity / 2
+                && target.edgeCount() <= target.edgeCapacity / 2;
+        if (fits || minVisits > rootVisits) break;
+      }
+      tree.spare = a;
+      tree.arena = target;
+      tree.root = 0;
+      tree.prunings++;
+      tree.full = false;
+    } finally {
+      tree.lock.writeLock().unlock();
+    }
+  }
 
-    while (System.currentTimeMillis() < end) {
-      // Selection
-      Node node = root;
-      while (node.isFullyExpanded() && !node.children.isEmpty()) {
-        node = node.bestUCT(EXPLORATION, rootWhite);
+  // Edges without visits first: in the order of the moves, which were shuffled at expansion, or
+  // with RAVE the one with the best AMAF value. Then UCT with the child's mean value over all its
+  // parents, blended with the edge's AMAF value under RAVE, and the edge's own visit count.
+  private static int selectEdge(NodeArena a, int node, int first, double rave) {
+    int best = first;
+    double bestScore = Double.NEGATIVE_INFINITY;
+    boolean unvisited = false;
+    double logVisits = Math.log(Math.max(1, a.visits.get(node)));
+    for (int e = first; e < first + a.edgeCount[node]; e++) {
+      int n = a.edgeVisits.get(e);
+      if (n == 0) {
+        if (rave == 0) return e;
+        int amafN = a.amafVisits.get(e);
+        double amaf = amafN == 0 ? 0.0 : (double) a.amafValue.get(e) / amafN;
+        if (!unvisited || amaf > bestScore) {
+          unvisited = true;
+          bestScore = amaf;
+          best = e;
+        }
+        continue;
       }
-      // Expansion
-      if (!node.isFullyExpanded()) {
-        node = node.expand(rng);
+      if (unvisited) continue;
+      int child = a.edgeChild.get(e);
+      int childVisits = a.visits.get(child);
+      double mean = childVisits == 0 ? 0.0 : (double) a.valueSum.get(child) / childVisits;
+      if (rave > 0) {
+        int amafN = a.amafVisits.get(e);
+        if (amafN > 0) {
+          double beta = Math.sqrt(rave / (3.0 * n + rave));
+          mean = (1 - beta) * mean + beta * a.amafValue.get(e) / amafN;
+        }
+      }
+      double uct = mean + EXPLORATION * Math.sqrt(logVisits / n);
+      if (uct > bestScore) {
+        bestScore = uct;
+        best = e;
       }
-      // Simulation
-      double result = rollout(node.state, node.whiteToMove, rng, rootWhite);
-      // Backpropagation
-      node.backpropagate(result);
     }
+    return best;
+  }
+
+  // Counts the visit up front and charges the virtual loss until the result is backed up; returns
+  // the node's previous visit count.
+  private static int addVirtualLoss(NodeArena a, int node) {
+    a.valueSum.addAndGet(node, -VIRTUAL_LOSS);
+    return a.visits.getAndIncrement(node);
+  }
+
+  // whiteResult is the rollout evaluation, positive when White is ahead. Nodes at even depths have
+  // the root's side to move, so they were moved into by the other side.
+  private static void backpropagate(
+      NodeArena a, int[] path, int depth, boolean rootWhite, int whiteResult) {
+    for (int d = depth; d >= 0; d--) {
+      boolean moverWhite = (d % 2 == 0) != rootWhite;
+      long value = moverWhite ? whiteResult : -whiteResult;
+      a.valueSum.addAndGet(path[d], value + VIRTUAL_LOSS);
+    }
+  }
 
-    // Choose the child with highest visit count (robust child)
-    Node best = null;
-    int bestVisits = -1;
-    for (Node c : root.children) {
-      if (c.visits > bestVisits) {
-        bestVisits = c.visits;
-        best = c;
+  // Credits the result to the AMAF statistics of every edge of each node on the path whose move
+  // the node's side to move played there or later in the iteration. Moves match on origin and
+  // destination squares.
+  private static void updateAmaf(
+      NodeArena a, Worker w, int depth, boolean rootWhite, int whiteResult) {
+    int stamp = ++w.stamp;
+    for (int ply = 0; ply < w.playedCount; ply++) {
+      int i = (ply & 1) * MOVE_SQUARES + (w.played[ply] & (MOVE_SQUARES - 1));
+      w.seenStamp[i] = stamp;
+      w.seenPly[i] = ply;
+    }
+    for (int d = 0; d <= depth; d++) {
+      int node = w.path[d];
+      int first = a.firstEdge.get(node);
+      if (first < 0) continue;
+      boolean moverWhite = (d % 2 == 0) == rootWhite;
+      long value = moverWhite ? whiteResult : -whiteResult;
+      for (int e = first; e < first + a.edgeCount[node]; e++) {
+        int i = (d & 1) * MOVE_SQUARES + (a.edgeMove[e] & (MOVE_SQUARES - 1));
+        if (w.seenStamp[i] == stamp && w.seenPly[i] >= d) {
+          a.amafVisits.getAndIncrement(e);
+          a.amafValue.addAndGet(e, value);
+        }
       }
     }
-    if (best == null) return Optional.empty();
-    return Optional.of(new MoveChoice(best.moveFromParent, best.state));
   }
 
-  private static double rollout(
-      ChessBoard state, boolean whiteToMove, Random rng, boolean rootWhite) {
-    ChessBoard cur = state;
+  // Key of the board's position at its game ply. An edge reaching a position that already has a
+  // node at that ply links to it, so move orders that transpose share one node and its statistics;
+  // selection weighs each edge's own visit count against the child's value, which pools all its
+  // parents. The ply strictly increases along any line, so nodes keyed this way never form a cycle.
+  private static long positionKey(ChessBoard board) {
+    int ply = 2 * board.fullmoveNumber() + (board.whiteToMove() ? 0 : 1);
+    return board.zobristKey() ^ (ply * 0x9E3779B97F4A7C15L);
+  }
+
+  // Plays random moves on the worker's board, which holds the leaf position at the given ply of the
+  // iteration, recording them after the tree moves; a drawn capture that loses material by
+  // StaticExchange is redrawn once. Moves go into the worker's reusable list, so a rollout
+  // allocates nothing. Returns the evaluation with White's advantage positive.
+  private static int rollout(ChessBoard board, boolean whiteToMove, Worker w, int ply) {
     boolean side = whiteToMove;
-    for (int ply = 0; ply < ROLLOUT_PLIES; ply++) {
-      List<ChessBoard.SimpleMove> moves = cur.generateSimpleMoves(side);
+    MoveList moves = w.moves;
+    int end = ply + ROLLOUT_PLIES;
+    for (; ply < end; ply++) {
+      board.generateMoves(side, moves);
       if (moves.isEmpty()) break; // No moves: just evaluate current position
-      ChessBoard.SimpleMove mv = moves.get(rng.nextInt(moves.size()));
-      cur = cur.apply(mv);
+      int move = moves.get(w.rng.nextInt(moves.size()));
+      if (Move.isCapture(move) && w.exchange.isLosing(board, move)) {
+        move = moves.get(w.rng.nextInt(moves.size()));
+      }
+      w.played[ply] = move;
+      board.makeMove(move);
       side = !side;
     }
-    int eval = cur.evaluateMaterial(); // positive = White ahead
-    // Convert to root perspective
-    return rootWhite ? eval : -eval;
+    w.playedCount = ply;
+    return board.evaluate(); // positive = White ahead
   }
 
-  public static record MoveChoice(ChessBoard.SimpleMove move, ChessBoard resultingState) {}
+  // Scores the leaf on the worker's board, at the given ply of the iteration, by quiescence search
+  // instead of a rollout; a king capture counts as KING_CAPTURE_RESULT rather than a mate score.
+  // Only the tree moves were played, for AMAF. Returns the score with White's advantage positive.
+  private static int quiesce(ChessBoard board, boolean whiteToMove, Worker w, int ply) {
+    w.playedCount = ply;
+    int score =
+        w.quiescence.search(board, whiteToMove, -AlphaBetaPlayer.MATE, AlphaBetaPlayer.MATE, 0);
+    score = Math.max(-KING_CAPTURE_RESULT, Math.min(KING_CAPTURE_RESULT, score));
+    return whiteToMove ? score : -score;
+  }
 }
@@ -0,0 +1,84 @@
+package org.example;
+
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Measures decision quality against iteration count: how often MonteCarloPlayer chooses the known
+ * best move of a few tactical positions, with plain UCT and with RAVE at several equivalence
+ * settings, each with random rollouts and with quiescence search at the leaves. In every position
+ * the best move wins material outright, so the fraction found shows how many iterations each
+ * configuration needs before its move ranking can be trusted.
+ */
+public final class MonteCarloQuality {
+
+  /** A position (White to move) and its best move in coordinate notation. */
+  public static record Position(String fen, String bestMove) {}
+
+  static final List<Position> POSITIONS =
+      List.of(
+          new Position("rnb1kbnr/pppp1ppp/8/4p3/3q4/4P3/PPPP1PPP/RNBQKBNR w KQkq - 0 3", "e3d4"),
+          new Position("rnb1kbnr/pppp1ppp/8/4p3/6q1/7P/PPPPPPP1/RNBQKBNR w KQkq - 0 3", "h3g4"),
+          new Position(
+              "r1bqkb1r/pppp1ppp/2n5/4p3/2B1n3/2N2N2/PPPP1PPP/R1BQK2R w KQkq - 0 5", "c3e4"),
+          new Position("r3k3/8/8/8/8/8/8/R3K3 w - - 0 1", "a1a8"));
+
+  private MonteCarloQuality() {}
+
+  /**
+   * Fraction of searches, over the positions and seeds 0 .. seeds - 1, that choose the best move
+   * with a fresh player using the given RAVE equivalence (0 for plain UCT).
+   */
+  public static double accuracy(
+      List<Position> positions, double raveEquivalence, int iterations, int seeds) {
+    return accuracy(positions, raveEquivalence, false, iterations, seeds);
+  }
+
+  /** As accuracy above, scoring leaves by quiescence search instead of rollouts if quiescence. */
+  public static double accuracy(
+      List<Position> positions,
+      double raveEquivalence,
+      boolean quiescence,
+      int iterations,
+      int seeds) {
+    int found = 0;
+    for (Position p : positions) {
+      ChessBoard board = ChessBoard.fromFen(p.fen());
+      for (int seed = 0; seed < seeds; seed++) {
+        MonteCarloPlayer player =
+            new MonteCarloPlayer(seed).withRave(raveEquivalence).withQuiescence(quiescence);
+        Optional<MonteCarloPlayer.MoveChoice> choice =
+            player.chooseMoveFixedIterations(board, board.whiteToMove(), iterations);
+        if (choice.isPresent() && Move.toString(choice.get().move()).equals(p.bestMove())) found++;
+      }
+    }
+    return (double) found / (positions.size() * seeds);
+  }
+
+  /**
+   * Prints the fraction of best moves found per iteration count (rows) and configuration (columns).
+   * Optional argument: seeds per position (default 20).
+   */
+  public static void main(String[] args) {
+    int seeds = args.length > 0 ? Integer.parseInt(args[0]) : 20;
+    double[] equivalences = {0, 50, 300, 1000};
+    System.out.printf("%10s", "iterations");
+    for (int qs = 0; qs < 2; qs++) {
+      for (double k : equivalences) {
+        String label = (k == 0 ? "UCT" : "RAVE k=" + (int) k) + (qs == 1 ? "+QS" : "");
+        System.out.printf("%" + (qs == 1 ? 15 : 12) + "s", label);
+      }
+    }
+    System.out.println();
+    for (int iterations = 40; iterations <= 1280; iterations *= 2) {
+      System.out.printf("%10d", iterations);
+      for (int qs = 0; qs < 2; qs++) {
+        for (double k : equivalences) {
+          double found = accuracy(POSITIONS, k, qs == 1, iterations, seeds);
+          System.out.printf("%" + (qs == 1 ? 14 : 11) + ".0f%%", 100 * found);
+        }
+      }
+      System.out.println();
+    }
+  }
+}
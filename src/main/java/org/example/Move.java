@@ -0,0 +1,76 @@
+package org.example;
+
+/**
+ * Moves packed into a single int so generators and searches can keep them in primitive arrays.
+ * Layout: origin square (bits 0-5), destination square (bits 6-11), moving piece code (bits 12-15),
+ * captured piece code or EMPTY (bits 16-19), flags (bits 20+). Squares use the ChessBoard numbering
+ * (a1 = 0 .. h8 = 63). A move is only meaningful for the position it was generated in.
+ */
+public final class Move {
+  /** Never produced by a generator: the moving piece of a real move is never EMPTY. */
+  public static final int NONE = 0;
+
+  /** Pawn advanced two squares from its starting rank. */
+  public static final int FLAG_DOUBLE_PUSH = 1;
+
+  /** Pawn capture onto the en-passant square; the captured pawn stands beside the origin. */
+  public static final int FLAG_EN_PASSANT = 2;
+
+  private Move() {}
+
+  public static int encode(int from, int to, int piece, int captured, int flags) {
+    return from | (to << 6) | (piece << 12) | (captured << 16) | (flags << 20);
+  }
+
+  public static int from(int move) {
+    return move & 63;
+  }
+
+  public static int to(int move) {
+    return (move >>> 6) & 63;
+  }
+
+  public static int piece(int move) {
+    return (move >>> 12) & 15;
+  }
+
+  public static int captured(int move) {
+    return (move >>> 16) & 15;
+  }
+
+  public static int flags(int move) {
+    return move >>> 20;
+  }
+
+  public static boolean isCapture(int move) {
+    return captured(move) != ChessBoard.EMPTY;
+  }
+
+  /** Decode into the record used by existing SimpleMove consumers. */
+  public static ChessBoard.SimpleMove toSimpleMove(int move) {
+    int from = from(move);
+    int to = to(move);
+    return new ChessBoard.SimpleMove(
+        Bitboards.file(from), Bitboards.rank(from), Bitboards.file(to), Bitboards.rank(to));
+  }
+
+  /** Coordinate notation such as "e2e4". */
+  public static String toString(int move) {
+    int from = from(move);
+    int to = to(move);
+    return ""
+        + (char) ('a' + Bitboards.file(from))
+        + (char) ('1' + Bitboards.rank(from))
+        + (char) ('a' + Bitboards.file(to))
+        + (char) ('1' + Bitboards.rank(to));
+  }
+
+  /** Coordinate notation of a SimpleMove, as for a packed move. */
+  public static String toString(ChessBoard.SimpleMove move) {
+    return ""
+        + (char) ('a' + move.fromFile())
+        + (char) ('1' + move.fromRank())
+        + (char) ('a' + move.toFile())
+        + (char) ('1' + move.toRank());
+  }
+}
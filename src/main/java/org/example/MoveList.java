@@ -0,0 +1,95 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+/**
+ * Growable list of packed moves (see Move) backed by an int array. Meant to be allocated once and
+ * refilled by ChessBoard.generateMoves, so steady-state move generation creates no garbage.
+ */
+public final class MoveList {
+  private int[] moves;
+  private int size;
+
+  public MoveList() {
+    this(64);
+  }
+
+  public MoveList(int initialCapacity) {
+    moves = new int[Math.max(1, initialCapacity)];
+  }
+
+  public void add(int move) {
+    if (size == moves.length) {
+      moves = Arrays.copyOf(moves, size * 2);
+    }
+    moves[size++] = move;
+  }
+
+  public int get(int index) {
+    if (index >= size) throw new IndexOutOfBoundsException(index);
+    return moves[index];
+  }
+
+  public void set(int index, int move) {
+    if (index >= size) throw new IndexOutOfBoundsException(index);
+    moves[index] = move;
+  }
+
+  public int size() {
+    return size;
+  }
+
+  public boolean isEmpty() {
+    return size == 0;
+  }
+
+  public void clear() {
+    size = 0;
+  }
+
+  /** Remove and return the move at index by moving the last move into its slot (order changes). */
+  public int removeAt(int index) {
+    int move = get(index);
+    moves[index] = moves[--size];
+    return move;
+  }
+
+  /**
+   * Sort the moves by key, highest first, where keys[i] belongs to the move at index i; the keys
+   * are sorted along. Insertion sort: stable, and fast for lists this short.
+   */
+  public void sort(int[] keys) {
+    for (int i = 1; i < size; i++) {
+      int key = keys[i];
+      int move = moves[i];
+      int j = i - 1;
+      while (j >= 0 && keys[j] < key) {
+        keys[j + 1] = keys[j];
+        moves[j + 1] = moves[j];
+        j--;
+      }
+      keys[j + 1] = key;
+      moves[j + 1] = move;
+    }
+  }
+
+  /** Put the moves in random order (Fisher-Yates). */
+  public void shuffle(SplittableRandom rng) {
+    for (int i = size - 1; i > 0; i--) {
+      int j = rng.nextInt(i + 1);
+      int move = moves[i];
+      moves[i] = moves[j];
+      moves[j] = move;
+    }
+  }
+
+  /** Replace this list's contents with a copy of other's. */
+  public void copyFrom(MoveList other) {
+    if (moves.length < other.size) {
+      moves = new int[other.moves.length];
+    }
+    System.arraycopy(other.moves, 0, moves, 0, other.size);
+    size = other.size;
+  }
+}
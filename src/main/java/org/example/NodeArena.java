@@ -0,0 +1,293 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Preallocated storage for a Monte Carlo search graph, laid out as parallel primitive arrays and
+ * addressed by int handles instead of one object per node. A node holds its position key, visit
+ * count, value sum and a contiguous run of edges; an edge holds a packed move, its own visit count
+ * and the handle of the node it leads to, which is only linked the first time the edge is followed.
+ * Nodes keep no board: searches replay the edge moves from the root position.
+ *
+ * <p>Nodes are deduplicated through a bounded table of position keys: an edge leading to a position
+ * that already has a node links to that node, so transpositions share their statistics and the tree
+ * becomes a DAG. The table has two slots per bucket and, when both are taken, the entry for the
+ * less visited node is replaced; a node that lost its entry stays in the graph but is no longer
+ * found by new edges.
+ *
+ * <p>An arena built with AMAF statistics also keeps, per edge, the all-moves-as-first count and
+ * value sum: results of iterations in which the edge's move was played later on by the same side.
+ *
+ * <p>Allocation is a lock-free bump of a counter, and expansion of a node is claimed with a CAS on
+ * its edge pointer, so several threads may grow the same arena. When it is full, nodes simply stay
+ * leaves. Space is only reclaimed by copying a subgraph into another arena (copySubtree), which can
+ * leave out the subtrees under rarely visited nodes.
+ */
+final class NodeArena {
+  static final int NONE = -1;
+
+  // firstEdge values below zero: not expanded yet, being expanded, or out of edge space
+  static final int LEAF = -1;
+  static final int EXPANDING = -2;
+  static final int UNEXPANDABLE = -3;
+
+  // Approximate bytes per node and per edge of the arrays below
+  static final int NODE_BYTES = 8 + 4 + 2 + 4 + 8 + 4; // the last 4: position table slot
+  static final int EDGE_BYTES = 4 + 4 + 4;
+  static final int AMAF_EDGE_BYTES = 4 + 8;
+
+  final int nodeCapacity;
+  final int edgeCapacity;
+
+  // Per node
+  final long[] key; // written before the node is published
+  final AtomicIntegerArray firstEdge;
+  final short[] edgeCount; // written before firstEdge publishes the edges
+  final AtomicIntegerArray visits;
+  // Sum of rollout results in centipawns from the perspective of the side that moved into the node
+  final AtomicLongArray valueSum;
+
+  // Per edge
+  final int[] edgeMove; // packed (see Move); written before firstEdge publishes the edge
+  final AtomicIntegerArray edgeChild;
+  // Times the edge was followed; differs from the child's visits when the child has other parents
+  final AtomicIntegerArray edgeVisits;
+  // AMAF count and value sum (perspective of the side making the move); null when not kept
+  final AtomicIntegerArray amafVisits;
+  final AtomicLongArray amafValue;
+
+  // Node handles by position key, two slots per bucket
+  private final AtomicIntegerArray table;
+  private final int bucketMask;
+
+  private final AtomicInteger nodes = new AtomicInteger();
+  private final AtomicInteger edges = new AtomicInteger();
+  private final AtomicInteger transpositions = new AtomicInteger();
+  // Scratch for copySubtree, allocated on first use: source handle of each copied node, and copy
+  // of each source node
+  private int[] copySource;
+  private int[] copyOf;
+
+  NodeArena(int nodeCapacity, int edgeCapacity) {
+    this(nodeCapacity, edgeCapacity, false);
+  }
+
+  NodeArena(int nodeCapacity, int edgeCapacity, boolean amaf) {
+    this.nodeCapacity = nodeCapacity;
+    this.edgeCapacity = edgeCapacity;
+    key = new long[nodeCapacity];
+    firstEdge = new AtomicIntegerArray(nodeCapacity);
+    edgeCount = new short[nodeCapacity];
+    visits = new AtomicIntegerArray(nodeCapacity);
+    valueSum = new AtomicLongArray(nodeCapacity);
+    edgeMove = new int[edgeCapacity];
+    edgeChild = new AtomicIntegerArray(edgeCapacity);
+    edgeVisits = new AtomicIntegerArray(edgeCapacity);
+    amafVisits = amaf ? new AtomicIntegerArray(edgeCapacity) : null;
+    amafValue = amaf ? new AtomicLongArray(edgeCapacity) : null;
+    table = new AtomicIntegerArray(Math.max(2, Integer.highestOneBit(nodeCapacity)));
+    bucketMask = table.length() - 2;
+    clearTable();
+  }
+
+  int nodeCount() {
+    return Math.min(nodes.get(), nodeCapacity);
+  }
+
+  int edgeCount() {
+    return Math.min(edges.get(), edgeCapacity);
+  }
+
+  /** Edges linked to a node that another edge already led to. */
+  int transpositions() {
+    return transpositions.get();
+  }
+
+  long bytes() {
+    int edgeBytes = EDGE_BYTES + (amafVisits == null ? 0 : AMAF_EDGE_BYTES);
+    return (long) nodeCapacity * NODE_BYTES + (long) edgeCapacity * edgeBytes;
+  }
+
+  void clear() {
+    nodes.set(0);
+    edges.set(0);
+    transpositions.set(0);
+    clearTable();
+  }
+
+  private void clearTable() {
+    for (int i = 0; i < table.length(); i++) {
+      table.set(i, NONE);
+    }
+  }
+
+  /**
+   * A fresh unexpanded node with no statistics for the position key, or NONE when the arena is
+   * full. The node is not entered in the position table.
+   */
+  int newNode(long positionKey) {
+    int n = claim(nodes, 1, nodeCapacity);
+    if (n == NONE) return NONE;
+    key[n] = positionKey;
+    firstEdge.set(n, LEAF);
+    edgeCount[n] = 0;
+    visits.set(n, 0);
+    valueSum.set(n, 0);
+    return n;
+  }
+
+  /**
+   * Expands node with the given moves unless another thread already is: returns the first edge (the
+   * node then has moves.size() edges), or a negative firstEdge state when not expanded.
+   */
+  int expand(int node, MoveList moves) {
+    if (!firstEdge.compareAndSet(node, LEAF, EXPANDING)) return firstEdge.get(node);
+    int first = claim(edges, moves.size(), edgeCapacity);
+    if (first == NONE) {
+      firstEdge.set(node, UNEXPANDABLE);
+      return UNEXPANDABLE;
+    }
+    for (int i = 0; i < moves.size(); i++) {
+      edgeMove[first + i] = moves.get(i);
+      edgeChild.set(first + i, NONE);
+      edgeVisits.set(first + i, 0);
+      if (amafVisits != null) {
+        amafVisits.set(first + i, 0);
+        amafValue.set(first + i, 0);
+      }
+    }
+    edgeCount[node] = (short) moves.size();
+    firstEdge.set(node, first);
+    return first;
+  }
+
+  /**
+   * The node behind edge, which leads to the position with the given key. On first use the edge is
+   * linked to the position's node when the table has one, or else to a new node; NONE when the
+   * arena is full.
+   */
+  int child(int edge, long positionKey) {
+    int child = edgeChild.get(edge);
+    if (child != NONE) return child;
+    child = find(positionKey);
+    boolean shared = child != NONE;
+    if (!shared) child = newNode(positionKey);
+    if (child == NONE) return NONE;
+    // A thread that loses the race leaves its new node unused; that is rare and costs one slot
+    if (!edgeChild.compareAndSet(edge, NONE, child)) return edgeChild.get(edge);
+    if (shared) {
+      transpositions.incrementAndGet();
+    } else {
+      insert(child);
+    }
+    return child;
+  }
+
+  /** The node for the position key, or NONE when the table has none. */
+  int find(long positionKey) {
+    int bucket = (int) positionKey & bucketMask;
+    for (int slot = bucket; slot < bucket + 2; slot++) {
+      int node = table.get(slot);
+      if (node != NONE && key[node] == positionKey) return node;
+    }
+    return NONE;
+  }
+
+  // Enters node in the table, taking a free slot of its bucket or else the slot of the less
+  // visited node. Concurrent inserts may overwrite each other, which only loses a transposition.
+  private void insert(int node) {
+    int bucket = (int) key[node] & bucketMask;
+    int first = table.get(bucket);
+    int second = table.get(bucket + 1);
+    int slot;
+    if (first == NONE) {
+      slot = bucket;
+    } else if (second == NONE) {
+      slot = bucket + 1;
+    } else {
+      slot = visits.get(first) <= visits.get(second) ? bucket : bucket + 1;
+    }
+    table.set(slot, node);
+  }
+
+  /**
+   * Clears target and copies the subgraph under root into it, breadth first, so the copy is compact
+   * and root becomes handle 0. Shared nodes stay shared and are entered in the target's table. Must
+   * not run concurrently with a search on either arena.
+   */
+  void copySubtree(int root, NodeArena target) {
+    copySubtree(root, target, 0);
+  }
+
+  /**
+   * Like copySubtree(root, target), but below the root only nodes with at least minVisits visits
+   * keep their edges; the others are copied with their statistics as unexpanded leaves, dropping
+   * everything under them. Copying also stops expanding nodes once target is full.
+   */
+  void copySubtree(int root, NodeArena target, int minVisits) {
+    target.clear();
+    if (target.copySource == null) target.copySource = new int[target.nodeCapacity];
+    if (target.copyOf == null || target.copyOf.length < nodeCapacity) {
+      target.copyOf = new int[nodeCapacity];
+    }
+    Arrays.fill(target.copyOf, NONE);
+    int[] source = target.copySource;
+    target.copyNode(this, root);
+    // New nodes are appended in breadth-first order, so walking them in order visits every
+    // copied node exactly once
+    for (int n = 0; n < target.nodeCount(); n++) {
+      int s = source[n];
+      int first = firstEdge.get(s);
+      if (first < 0) continue; // leaves stay leaves; an interrupted expansion is retried later
+      if (n != 0 && visits.get(s) < minVisits) continue;
+      int count = edgeCount[s];
+      int copy = claim(target.edges, count, target.edgeCapacity);
+      if (copy == NONE) continue;
+      for (int i = 0; i < count; i++) {
+        target.edgeMove[copy + i] = edgeMove[first + i];
+        int child = edgeChild.get(first + i);
+        int copied = child == NONE ? NONE : target.copyNode(this, child);
+        target.edgeChild.set(copy + i, copied);
+        target.edgeVisits.set(copy + i, copied == NONE ? 0 : edgeVisits.get(first + i));
+        if (target.amafVisits != null) {
+          boolean kept = amafVisits != null;
+          target.amafVisits.set(copy + i, kept ? amafVisits.get(first + i) : 0);
+          target.amafValue.set(copy + i, kept ? amafValue.get(first + i) : 0);
+        }
+      }
+      target.edgeCount[n] = (short) count;
+      target.firstEdge.set(n, copy);
+    }
+  }
+
+  // The copy in this arena of node in from: created unexpanded with the node's key and statistics
+  // on the first call, shared by later calls.
+  private int copyNode(NodeArena from, int node) {
+    int n = copyOf[node];
+    if (n != NONE) {
+      transpositions.incrementAndGet();
+      return n;
+    }
+    n = newNode(from.key[node]);
+    if (n == NONE) return NONE;
+    visits.set(n, from.visits.get(node));
+    valueSum.set(n, from.valueSum.get(node));
+    copyOf[node] = n;
+    copySource[n] = node;
+    insert(n);
+    return n;
+  }
+
+  // Reserves count consecutive slots below capacity; never moves the counter past capacity, so
+  // failed attempts cannot overflow it.
+  private static int claim(AtomicInteger counter, int count, int capacity) {
+    while (true) {
+      int start = counter.get();
+      if (start + count > capacity) return NONE;
+      if (counter.compareAndSet(start, start + count)) return start;
+    }
+  }
+}
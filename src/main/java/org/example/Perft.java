@@ -0,0 +1,201 @@
+package org.example;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Perft: counts the leaf nodes of the legal move tree to a fixed depth. It checks the move
+ * generator against known node counts and doubles as its throughput benchmark. Moves come from
+ * ChessBoard.generateMoves and a move is legal when it does not leave the mover's own king attacked
+ * (simplified rules: no castling or promotions, so counts only match published reference values
+ * where those moves do not occur).
+ *
+ * <p>The last ply is bulk counted: legal moves at depth 1 are counted instead of being searched to
+ * depth 0. An optional hash table caches subtree counts by position and depth, and countParallel
+ * splits the root moves across a fork-join pool.
+ */
+public final class Perft {
+  private static final int MAX_DEPTH = 64;
+
+  // Lockless table: slot i holds (check, count) at [2i, 2i + 1], check = key ^ count, so a torn
+  // write from another thread fails verification instead of returning a wrong count.
+  private final long[] table;
+  private final int mask;
+
+  /** Perft without a hash table. */
+  public Perft() {
+    this(0);
+  }
+
+  /** Perft with a subtree-count cache of about hashMegabytes MiB (0 disables it). */
+  public Perft(int hashMegabytes) {
+    if (hashMegabytes < 0) throw new IllegalArgumentException("hashMegabytes must be >= 0");
+    if (hashMegabytes == 0) {
+      table = null;
+      mask = 0;
+    } else {
+      long slots = Long.highestOneBit(hashMegabytes * (1L << 20) / 16);
+      table = new long[(int) Math.min(slots, 1 << 28) * 2];
+      mask = table.length / 2 - 1;
+    }
+  }
+
+  /** Node count and elapsed time of one perft run. */
+  public static record Result(long nodes, long nanos) {
+    public double nodesPerSecond() {
+      return nanos == 0 ? 0.0 : nodes * 1e9 / nanos;
+    }
+  }
+
+  /** Leaf count of the legal move tree of depth plies for the side to move on board. */
+  public long count(ChessBoard board, int depth) {
+    checkDepth(depth);
+    if (depth == 0) return 1;
+    return count(board, depth, newLists());
+  }
+
+  /** Same as count, with root moves searched in parallel on the common fork-join pool. */
+  public long countParallel(ChessBoard board, int depth) {
+    checkDepth(depth);
+    if (depth <= 1) return count(board, depth);
+    boolean white = board.whiteToMove();
+    MoveList moves = new MoveList();
+    board.generateMoves(white, moves);
+    List<RootTask> tasks = new ArrayList<>();
+    for (int i = 0; i < moves.size(); i++) {
+      ChessBoard child = board.apply(moves.get(i));
+      if (!child.isInCheck(white)) tasks.add(new RootTask(this, child, depth - 1));
+    }
+    for (RootTask task : tasks) {
+      task.fork();
+    }
+    long nodes = 0;
+    for (RootTask task : tasks) {
+      nodes += task.join();
+    }
+    return nodes;
+  }
+
+  /** Leaf counts split by legal root move, in generation order, keyed like "e2e4". */
+  public Map<String, Long> divide(ChessBoard board, int depth) {
+    checkDepth(depth);
+    if (depth == 0) throw new IllegalArgumentException("divide needs depth >= 1");
+    boolean white = board.whiteToMove();
+    MoveList moves = new MoveList();
+    board.generateMoves(white, moves);
+    MoveList[] lists = newLists();
+    Map<String, Long> result = new LinkedHashMap<>();
+    for (int i = 0; i < moves.size(); i++) {
+      int move = moves.get(i);
+      board.makeMove(move);
+      if (!board.isInCheck(white)) {
+        result.put(Move.toString(move), depth == 1 ? 1L : count(board, depth - 1, lists));
+      }
+      board.unmakeMove();
+    }
+    return result;
+  }
+
+  /** Times a sequential or parallel count. */
+  public Result run(ChessBoard board, int depth, boolean parallel) {
+    long start = System.nanoTime();
+    long nodes = parallel ? countParallel(board, depth) : count(board, depth);
+    return new Result(nodes, System.nanoTime() - start);
+  }
+
+  private long count(ChessBoard board, int depth, MoveList[] lists) {
+    boolean white = board.whiteToMove();
+    MoveList moves = lists[depth];
+    board.generateMoves(white, moves);
+    long nodes = 0;
+    if (depth == 1) {
+      // Bulk counting: each legal move is one leaf, no need to generate below it
+      for (int i = 0; i < moves.size(); i++) {
+        board.makeMove(moves.get(i));
+        if (!board.isInCheck(white)) nodes++;
+        board.unmakeMove();
+      }
+      return nodes;
+    }
+    long key = board.zobristKey() ^ (depth * 0x9E3779B97F4A7C15L);
+    if (table != null) {
+      int slot = ((int) key & mask) * 2;
+      long check = table[slot];
+      long cached = table[slot + 1];
+      if ((check ^ cached) == key) return cached;
+    }
+    for (int i = 0; i < moves.size(); i++) {
+      board.makeMove(moves.get(i));
+      if (!board.isInCheck(white)) nodes += count(board, depth - 1, lists);
+      board.unmakeMove();
+    }
+    if (table != null) {
+      int slot = ((int) key & mask) * 2;
+      table[slot] = key ^ nodes;
+      table[slot + 1] = nodes;
+    }
+    return nodes;
+  }
+
+  private static MoveList[] newLists() {
+    MoveList[] lists = new MoveList[MAX_DEPTH + 1];
+    for (int i = 0; i < lists.length; i++) {
+      lists[i] = new MoveList();
+    }
+    return lists;
+  }
+
+  private static void checkDepth(int depth) {
+    if (depth < 0 || depth > MAX_DEPTH) {
+      throw new IllegalArgumentException("depth must be within 0.." + MAX_DEPTH);
+    }
+  }
+
+  // Tasks are never serialized; the fields are transient so the class stays lint-clean.
+  private static final class RootTask extends RecursiveTask<Long> {
+    private static final long serialVersionUID = 1L;
+
+    private final transient Perft perft;
+    private final transient ChessBoard board;
+    private final int depth;
+
+    RootTask(Perft perft, ChessBoard board, int depth) {
+      this.perft = perft;
+      this.board = board;
+      this.depth = depth;
+    }
+
+    @Override
+    protected Long compute() {
+      return depth == 0 ? 1L : perft.count(board, depth, newLists());
+    }
+  }
+
+  /**
+   * Benchmark: prints node counts and nodes per second for the reference positions, sequential and
+   * parallel, with and without the hash table. Optional argument: depth (default 5).
+   */
+  public static void main(String[] args) {
+    int depth = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+    Map<String, String> positions = new LinkedHashMap<>();
+    positions.put("initial", ChessBoard.INITIAL_FEN);
+    positions.put("italian", "r1bqk1nr/pppp1ppp/2n5/2b1p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4");
+    // Reference "position 3": en passant and discovered checks, but no castling or promotions
+    positions.put("position3", "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+    for (Map.Entry<String, String> e : positions.entrySet()) {
+      ChessBoard board = ChessBoard.fromFen(e.getValue());
+      report(e.getKey() + " sequential", new Perft().run(board, depth, false));
+      report(e.getKey() + " hashed", new Perft(64).run(board, depth, false));
+      report(e.getKey() + " parallel+hash", new Perft(64).run(board, depth, true));
+    }
+  }
+
+  private static void report(String label, Result r) {
+    System.out.printf(
+        "%-28s nodes %,14d  %8.1f ms  %,12.0f nps%n",
+        label, r.nodes(), r.nanos() / 1e6, r.nodesPerSecond());
+  }
+}
@@ -0,0 +1,96 @@
+package org.example;
+
+/**
+ * Positional bonuses per piece and square, in centipawns (the "simplified evaluation function"
+ * tables). The tables below are written from White's side with rank 8 on the first row, as they
+ * would appear on a diagram; black pieces use the vertically mirrored square and a negated value,
+ * so the combined table is positive for White and sums to zero in symmetric positions.
+ */
+final class PieceSquareTables {
+  private static final int[] PAWN = {
+    0, 0, 0, 0, 0, 0, 0, 0, //
+    50, 50, 50, 50, 50, 50, 50, 50, //
+    10, 10, 20, 30, 30, 20, 10, 10, //
+    5, 5, 10, 25, 25, 10, 5, 5, //
+    0, 0, 0, 20, 20, 0, 0, 0, //
+    5, -5, -10, 0, 0, -10, -5, 5, //
+    5, 10, 10, -20, -20, 10, 10, 5, //
+    0, 0, 0, 0, 0, 0, 0, 0
+  };
+
+  private static final int[] KNIGHT = {
+    -50, -40, -30, -30, -30, -30, -40, -50, //
+    -40, -20, 0, 0, 0, 0, -20, -40, //
+    -30, 0, 10, 15, 15, 10, 0, -30, //
+    -30, 5, 15, 20, 20, 15, 5, -30, //
+    -30, 0, 15, 20, 20, 15, 0, -30, //
+    -30, 5, 10, 15, 15, 10, 5, -30, //
+    -40, -20, 0, 5, 5, 0, -20, -40, //
+    -50, -40, -30, -30, -30, -30, -40, -50
+  };
+
+  private static final int[] BISHOP = {
+    -20, -10, -10, -10, -10, -10, -10, -20, //
+    -10, 0, 0, 0, 0, 0, 0, -10, //
+    -10, 0, 5, 10, 10, 5, 0, -10, //
+    -10, 5, 5, 10, 10, 5, 5, -10, //
+    -10, 0, 10, 10, 10, 10, 0, -10, //
+    -10, 10, 10, 10, 10, 10, 10, -10, //
+    -10, 5, 0, 0, 0, 0, 5, -10, //
+    -20, -10, -10, -10, -10, -10, -10, -20
+  };
+
+  private static final int[] ROOK = {
+    0, 0, 0, 0, 0, 0, 0, 0, //
+    5, 10, 10, 10, 10, 10, 10, 5, //
+    -5, 0, 0, 0, 0, 0, 0, -5, //
+    -5, 0, 0, 0, 0, 0, 0, -5, //
+    -5, 0, 0, 0, 0, 0, 0, -5, //
+    -5, 0, 0, 0, 0, 0, 0, -5, //
+    -5, 0, 0, 0, 0, 0, 0, -5, //
+    0, 0, 0, 5, 5, 0, 0, 0
+  };
+
+  private static final int[] QUEEN = {
+    -20, -10, -10, -5, -5, -10, -10, -20, //
+    -10, 0, 0, 0, 0, 0, 0, -10, //
+    -10, 0, 5, 5, 5, 5, 0, -10, //
+    -5, 0, 5, 5, 5, 5, 0, -5, //
+    0, 0, 5, 5, 5, 5, 0, -5, //
+    -10, 5, 5, 5, 5, 5, 0, -10, //
+    -10, 0, 5, 0, 0, 0, 0, -10, //
+    -20, -10, -10, -5, -5, -10, -10, -20
+  };
+
+  private static final int[] KING = {
+    -30, -40, -40, -50, -50, -40, -40, -30, //
+    -30, -40, -40, -50, -50, -40, -40, -30, //
+    -30, -40, -40, -50, -50, -40, -40, -30, //
+    -30, -40, -40, -50, -50, -40, -40, -30, //
+    -20, -30, -30, -40, -40, -30, -30, -20, //
+    -10, -20, -20, -20, -20, -20, -20, -10, //
+    20, 20, 0, 0, 0, 0, 20, 20, //
+    20, 30, 10, 0, 0, 10, 30, 20
+  };
+
+  // [piece code][square], signed: positive for White
+  private static final int[][] VALUES = new int[13][64];
+
+  static {
+    int[][] white = {PAWN, KNIGHT, BISHOP, ROOK, QUEEN, KING};
+    for (int type = 0; type < 6; type++) {
+      for (int sq = 0; sq < 64; sq++) {
+        // Diagram row 0 is rank 8, so White's square sq sits at row 7 - rank
+        int diagram = (7 - Bitboards.rank(sq)) * 8 + Bitboards.file(sq);
+        VALUES[ChessBoard.WHITE_PAWN + type][sq] = white[type][diagram];
+        VALUES[ChessBoard.BLACK_PAWN + type][sq ^ 56] = -white[type][diagram];
+      }
+    }
+  }
+
+  private PieceSquareTables() {}
+
+  static int value(int piece, int square) {
+    return VALUES[piece][square];
+  }
+}
@@ -0,0 +1,98 @@
+package org.example;
+
+/**
+ * Capture-only quiescence search, to score a position only once it is quiet instead of in the
+ * middle of an exchange. The side to move may stand pat on the static evaluation (ChessBoard
+ * evaluate) or try its captures, most valuable victim first and least valuable attacker among equal
+ * victims (MVV-LVA), with the opponent answering the same way until no capture improves the score.
+ * Delta pruning skips a capture when even winning the victim plus DELTA_MARGIN leaves the side
+ * below alpha, and captures that lose material by StaticExchange are not searched. A side that can
+ * capture the opposing king scores as won, as in AlphaBetaPlayer.
+ *
+ * <p>Used by AlphaBetaPlayer at the leaves and, optionally, by MonteCarloPlayer instead of a random
+ * rollout. An instance keeps preallocated move lists and is meant for one thread.
+ */
+final class Quiescence {
+  // Captures searched in a row at most; the evaluation is returned beyond that
+  static final int MAX_DEPTH = 32;
+  // Positional swing allowed for on top of the captured material before a capture is pruned
+  private static final int DELTA_MARGIN = 200;
+  // Ordering values of the piece codes, for MVV-LVA
+  private static final int[] ORDER_VALUE = {0, 1, 3, 3, 5, 9, 100, 1, 3, 3, 5, 9, 100};
+
+  private final StaticExchange exchange = new StaticExchange();
+  private final MoveList all = new MoveList();
+  private final MoveList[] captures = new MoveList[MAX_DEPTH];
+  private final int[][] keys = new int[MAX_DEPTH][];
+
+  /** Positions reached by the captures searched (the positions searched from are not counted). */
+  long nodes;
+
+  Quiescence() {
+    for (int d = 0; d < MAX_DEPTH; d++) {
+      captures[d] = new MoveList(16);
+      keys[d] = new int[16];
+    }
+  }
+
+  /** MVV-LVA ordering key of a capture: higher for a more valuable victim, then a cheaper mover. */
+  static int captureKey(int move) {
+    return ORDER_VALUE[Move.captured(move)] * 128 - ORDER_VALUE[Move.piece(move)];
+  }
+
+  /**
+   * Score for the side to move (white or not) within the window alpha..beta, fail-soft; ply is the
+   * distance from the root, which king capture scores count (AlphaBetaPlayer.MATE - ply); captures
+   * stop at AlphaBetaPlayer.MAX_PLY so those scores stay in its mate range. The board is left as it
+   * was.
+   */
+  int search(ChessBoard board, boolean white, int alpha, int beta, int ply) {
+    return search(board, white, alpha, beta, ply, 0);
+  }
+
+  private int search(ChessBoard board, boolean white, int alpha, int beta, int ply, int depth) {
+    int standPat = white ? board.evaluate() : -board.evaluate();
+    board.generateMoves(white, all);
+    MoveList list = captures[depth];
+    list.clear();
+    for (int i = 0; i < all.size(); i++) {
+      int move = all.get(i);
+      if (!Move.isCapture(move)) continue;
+      int captured = Move.captured(move);
+      if (captured == ChessBoard.WHITE_KING || captured == ChessBoard.BLACK_KING) {
+        return AlphaBetaPlayer.MATE - ply;
+      }
+      list.add(move);
+    }
+    if (standPat >= beta || depth == MAX_DEPTH - 1 || ply >= AlphaBetaPlayer.MAX_PLY - 1) {
+      return standPat;
+    }
+    if (standPat > alpha) alpha = standPat;
+    int n = list.size();
+    if (keys[depth].length < n) keys[depth] = new int[n];
+    int[] key = keys[depth];
+    for (int i = 0; i < n; i++) {
+      key[i] = captureKey(list.get(i));
+    }
+    list.sort(key);
+    int best = standPat;
+    for (int i = 0; i < n; i++) {
+      int move = list.get(i);
+      // Knights and bishops share an ordering value, so a cheaper victim can come first
+      if (standPat + ChessBoard.pieceValue(Move.captured(move)) + DELTA_MARGIN <= alpha) continue;
+      if (exchange.isLosing(board, move)) continue;
+      board.makeMove(move);
+      nodes++;
+      int score = -search(board, !white, -beta, -alpha, ply + 1, depth + 1);
+      board.unmakeMove();
+      if (score > best) {
+        best = score;
+        if (score > alpha) {
+          alpha = score;
+          if (alpha >= beta) break;
+        }
+      }
+    }
+    return best;
+  }
+}
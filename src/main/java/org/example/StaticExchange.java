@@ -0,0 +1,76 @@
+package org.example;
+
+/**
+ * Static exchange evaluation (SEE): the material a move wins or loses once both sides have made
+ * every capture on its destination square that pays off, worked out from the attack tables without
+ * making any move. After the move, the sides take turns recapturing on the square with their least
+ * valuable attacker, sliders behind a capturing piece joining in as it leaves (x-rays), and each
+ * side may stop instead of recapturing when that is better for it. The swap list of gains is then
+ * resolved backwards.
+ *
+ * <p>Kings take part as attackers with a value far above any material, so a king only recaptures
+ * where nothing can take it back, and capturing a king scores that value at once. Pins are ignored,
+ * as the pseudo-legal rules allow a pinned piece to capture anyway.
+ *
+ * <p>Used to order captures in AlphaBetaPlayer, to skip losing captures in Quiescence and to steer
+ * MonteCarloPlayer rollouts away from them. An instance keeps the swap list and is meant for one
+ * thread.
+ */
+final class StaticExchange {
+  /** Exchange value of a king, above any material that can be at stake on a square. */
+  static final int KING_VALUE = 20_000;
+
+  // Exchange values of the piece codes
+  private static final int[] VALUE = {
+    0, 100, 320, 330, 500, 900, KING_VALUE, 100, 320, 330, 500, 900, KING_VALUE
+  };
+
+  // gain[d]: what the side making the d-th capture wins if the exchange stopped after it
+  private final int[] gain = new int[32];
+
+  /** Centipawns the mover of move wins (negative: loses) when the exchange it starts plays out. */
+  int evaluate(ChessBoard board, int move) {
+    int captured = Move.captured(move);
+    if (captured == ChessBoard.WHITE_KING || captured == ChessBoard.BLACK_KING) return KING_VALUE;
+    int from = Move.from(move);
+    int to = Move.to(move);
+    int piece = Move.piece(move);
+    boolean white = piece <= ChessBoard.WHITE_KING;
+    long occupied = (board.occupancy(true) | board.occupancy(false)) ^ (1L << from);
+    if ((Move.flags(move) & Move.FLAG_EN_PASSANT) != 0) {
+      occupied ^= 1L << (white ? to - 8 : to + 8); // the captured pawn is beside the origin
+    }
+    long attackers = board.attackersTo(to, occupied) & occupied;
+    gain[0] = VALUE[captured];
+    int onSquare = VALUE[piece];
+    boolean side = !white;
+    int d = 0;
+    while (true) {
+      long own = attackers & board.occupancy(side);
+      if (own == 0) break;
+      // Least valuable attacker of the side to capture
+      int attacker = side ? ChessBoard.WHITE_PAWN : ChessBoard.BLACK_PAWN;
+      long bits;
+      while ((bits = own & board.bitboard(attacker)) == 0) attacker++;
+      d++;
+      gain[d] = onSquare - gain[d - 1];
+      if (d == gain.length - 1) break;
+      onSquare = VALUE[attacker];
+      occupied ^= bits & -bits;
+      attackers = board.attackersTo(to, occupied) & occupied;
+      side = !side;
+    }
+    for (; d > 0; d--) {
+      gain[d - 1] = -Math.max(-gain[d - 1], gain[d]);
+    }
+    return gain[0];
+  }
+
+  /**
+   * Whether move loses material by exchange. Only a capture by a piece worth more than its victim
+   * (or a quiet move) can; the others are answered without running the exchange.
+   */
+  boolean isLosing(ChessBoard board, int move) {
+    return VALUE[Move.piece(move)] > VALUE[Move.captured(move)] && evaluate(board, move) < 0;
+  }
+}
@@ -0,0 +1,201 @@
+package org.example;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-size transposition table for alpha-beta search, stored in one long array so entries cost no
+ * objects. An entry is two longs: the search data packed into one word (best move, score, depth,
+ * bound type and the age of the search that stored it) and a check word holding the position key
+ * XOR the data. A probe accepts the entry only when the check XOR the data gives back the key, so
+ * concurrent writers need no locks: an entry torn between two writers fails the check and reads as
+ * a miss, just as an entry for another position does.
+ *
+ * <p>Entries are grouped in buckets of four (64 bytes, one cache line) selected by the key. A store
+ * overwrites the entry for the same position, else takes an empty entry, else replaces the one
+ * worth least: shallow entries go first, and entries from earlier searches (see newSearch) lose
+ * ENTRY_AGE_WEIGHT plies of depth per search they are behind.
+ *
+ * <p>Probes, hits, stores and collisions (stores that evict another position's entry) are counted
+ * with LongAdders so threads sharing a table do not contend on the counters.
+ */
+public final class TranspositionTable {
+  /** Bound type of a score from a search that failed low: the true score is at most this. */
+  public static final int UPPER = 1;
+
+  /** Bound type of a score from a search that failed high: the true score is at least this. */
+  public static final int LOWER = 2;
+
+  /** Bound type of an exact score. */
+  public static final int EXACT = 3;
+
+  private static final int BUCKET_ENTRIES = 4;
+  private static final int ENTRY_AGE_WEIGHT = 8;
+  // Data word layout; a stored entry has a non-zero bound, so data 0 means empty
+  private static final int MOVE_BITS = 24;
+  private static final int SCORE_SHIFT = 24;
+  private static final int SCORE_BITS = 20;
+  private static final int DEPTH_SHIFT = 44;
+  private static final int BOUND_SHIFT = 52;
+  private static final int AGE_SHIFT = 54;
+  private static final int FILL_SAMPLE_BUCKETS = 250; // 1000 entries
+
+  // Entry i at [2i, 2i + 1]: check word, data word
+  final long[] table;
+  private final int bucketMask;
+  private int age;
+
+  private final LongAdder probes = new LongAdder();
+  private final LongAdder hits = new LongAdder();
+  private final LongAdder stores = new LongAdder();
+  private final LongAdder collisions = new LongAdder();
+
+  /** A table of about megabytes MiB (rounded down to a power of two entries, 16 bytes each). */
+  public TranspositionTable(int megabytes) {
+    if (megabytes < 1) throw new IllegalArgumentException("megabytes must be >= 1");
+    long entries = Long.highestOneBit(megabytes * (1L << 20) / 16);
+    int buckets = (int) Math.min(entries / BUCKET_ENTRIES, 1 << 26);
+    table = new long[buckets * BUCKET_ENTRIES * 2];
+    bucketMask = buckets - 1;
+  }
+
+  /** Capacity in entries. */
+  public int entries() {
+    return table.length / 2;
+  }
+
+  /** Starts a new search: entries stored from now on are preferred over older ones. */
+  public void newSearch() {
+    age = (age + 1) & 0xFF;
+  }
+
+  /** Empties the table and resets the age and the counters. */
+  public void clear() {
+    Arrays.fill(table, 0);
+    age = 0;
+    probes.reset();
+    hits.reset();
+    stores.reset();
+    collisions.reset();
+  }
+
+  /** The packed data stored for the position key, or 0 when the table holds none. */
+  public long probe(long key) {
+    probes.increment();
+    int base = bucket(key);
+    for (int i = base; i < base + 2 * BUCKET_ENTRIES; i += 2) {
+      long data = table[i + 1];
+      if (data != 0 && (table[i] ^ data) == key) {
+        hits.increment();
+        return data;
+      }
+    }
+    return 0;
+  }
+
+  /**
+   * Stores a search result for the position key: best move (or Move.NONE), score, remaining depth
+   * and bound type. An existing entry for the position keeps its move when the new result has none.
+   */
+  public void store(long key, int move, int score, int depth, int bound) {
+    stores.increment();
+    int base = bucket(key);
+    int victim = base;
+    int victimWorth = Integer.MAX_VALUE;
+    for (int i = base; i < base + 2 * BUCKET_ENTRIES; i += 2) {
+      long data = table[i + 1];
+      if (data == 0) {
+        victim = i;
+        victimWorth = Integer.MIN_VALUE;
+        break;
+      }
+      if ((table[i] ^ data) == key) {
+        if (move == Move.NONE) move = move(data);
+        victim = i;
+        victimWorth = Integer.MIN_VALUE;
+        break;
+      }
+      int worth = depth(data) - ENTRY_AGE_WEIGHT * ((age - age(data)) & 0xFF);
+      if (worth < victimWorth) {
+        victim = i;
+        victimWorth = worth;
+      }
+    }
+    if (victimWorth != Integer.MIN_VALUE) collisions.increment();
+    long data =
+        (move & ((1L << MOVE_BITS) - 1))
+            | ((score & ((1L << SCORE_BITS) - 1)) << SCORE_SHIFT)
+            | ((long) depth << DEPTH_SHIFT)
+            | ((long) bound << BOUND_SHIFT)
+            | ((long) age << AGE_SHIFT);
+    table[victim] = key ^ data;
+    table[victim + 1] = data;
+  }
+
+  private int bucket(long key) {
+    return ((int) key & bucketMask) * 2 * BUCKET_ENTRIES;
+  }
+
+  public static int move(long data) {
+    return (int) (data & ((1L << MOVE_BITS) - 1));
+  }
+
+  public static int score(long data) {
+    return (int) (data << (64 - SCORE_SHIFT - SCORE_BITS) >> (64 - SCORE_BITS));
+  }
+
+  public static int depth(long data) {
+    return (int) (data >>> DEPTH_SHIFT) & 0xFF;
+  }
+
+  public static int bound(long data) {
+    return (int) (data >>> BOUND_SHIFT) & 3;
+  }
+
+  static int age(long data) {
+    return (int) (data >>> AGE_SHIFT) & 0xFF;
+  }
+
+  public long probes() {
+    return probes.sum();
+  }
+
+  public long hits() {
+    return hits.sum();
+  }
+
+  public long stores() {
+    return stores.sum();
+  }
+
+  /** Stores that replaced the entry of another position. */
+  public long collisions() {
+    return collisions.sum();
+  }
+
+  /** Hits per probe since the last clear. */
+  public double hitRate() {
+    long p = probes();
+    return p == 0 ? 0.0 : (double) hits() / p;
+  }
+
+  /** Collisions per store since the last clear. */
+  public double collisionRate() {
+    long s = stores();
+    return s == 0 ? 0.0 : (double) collisions() / s;
+  }
+
+  /**
+   * Entries in use by the current search per thousand, estimated from the first buckets (the
+   * "hashfull" figure engines report).
+   */
+  public int fillPermille() {
+    int sampled = Math.min(FILL_SAMPLE_BUCKETS, bucketMask + 1) * BUCKET_ENTRIES;
+    int used = 0;
+    for (int i = 0; i < 2 * sampled; i += 2) {
+      long data = table[i + 1];
+      if (data != 0 && age(data) == age) used++;
+    }
+    return used * 1000 / sampled;
+  }
+}
@@ -0,0 +1,51 @@
+package org.example;
+
+/**
+ * Zobrist hashing keys for ChessBoard positions. Keys come from a fixed-seed SplitMix64 sequence,
+ * so a position hashes to the same 64-bit value in every run and on every machine. A position key
+ * is the XOR of the key of each (piece, square) pair, SIDE_TO_MOVE when Black is to move, the
+ * CASTLING entry for the current rights mask and the EN_PASSANT_FILE entry when an en-passant
+ * target square is set.
+ */
+final class Zobrist {
+  private static final long SEED = 0x5EED_C0DE_2024_0001L;
+
+  /** Indexed by [piece code][square]; the EMPTY row stays zero so it never changes a key. */
+  static final long[][] PIECE_SQUARE = new long[13][64];
+
+  static final long SIDE_TO_MOVE;
+
+  /** Indexed by a 4-bit castling rights mask (KQkq); entry 0 is zero. */
+  static final long[] CASTLING = new long[16];
+
+  static final long[] EN_PASSANT_FILE = new long[8];
+
+  static {
+    long state = SEED;
+    for (int piece = ChessBoard.WHITE_PAWN; piece <= ChessBoard.BLACK_KING; piece++) {
+      for (int sq = 0; sq < 64; sq++) {
+        state += 0x9E3779B97F4A7C15L;
+        PIECE_SQUARE[piece][sq] = mix(state);
+      }
+    }
+    state += 0x9E3779B97F4A7C15L;
+    SIDE_TO_MOVE = mix(state);
+    for (int rights = 1; rights < 16; rights++) {
+      state += 0x9E3779B97F4A7C15L;
+      CASTLING[rights] = mix(state);
+    }
+    for (int file = 0; file < 8; file++) {
+      state += 0x9E3779B97F4A7C15L;
+      EN_PASSANT_FILE[file] = mix(state);
+    }
+  }
+
+  private Zobrist() {}
+
+  // SplitMix64 output function
+  private static long mix(long z) {
+    z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+    z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+    return z ^ (z >>> 31);
+  }
+}
@@ -0,0 +1,140 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+public class AlphaBetaPlayerTest {
+
+  @Test
+  void findsTheWinningCaptureOfEachQualityPosition() {
+    AlphaBetaPlayer player = new AlphaBetaPlayer();
+    for (MonteCarloQuality.Position p : MonteCarloQuality.POSITIONS) {
+      ChessBoard board = ChessBoard.fromFen(p.fen());
+      Optional<ChessEngine.MoveChoice> choice = player.chooseMoveFixedDepth(board, true, 4);
+      assertEquals(p.bestMove(), Move.toString(choice.get().move()), p.fen());
+      assertEquals(ChessBoard.fromFen(p.fen()), board);
+      assertEquals(4, player.lastStats().depth());
+    }
+  }
+
+  @Test
+  void principalVariationSearchScoresLikePlainMinimax() {
+    String[] fens = {
+      ChessBoard.INITIAL_FEN,
+      "r1bqkb1r/pppp1ppp/2n5/4p3/2B1n3/2N2N2/PPPP1PPP/R1BQK2R w KQkq - 0 5",
+      "r3k3/8/8/8/8/8/8/R3K3 w - - 0 1",
+      "4k3/8/8/3q4/8/8/3R4/3K4 b - - 0 1"
+    };
+    // Table cutoffs may use deeper results, and quiescence extends the leaves
+    AlphaBetaPlayer player = new AlphaBetaPlayer(0).withQuiescence(false);
+    for (String fen : fens) {
+      ChessBoard board = ChessBoard.fromFen(fen);
+      for (int depth = 1; depth <= 3; depth++) {
+        player.chooseMoveFixedDepth(board, board.whiteToMove(), depth);
+        int expected = minimax(board.copy(), depth, 0, board.whiteToMove());
+        assertEquals(expected, player.lastStats().score(), fen + " depth " + depth);
+      }
+    }
+  }
+
+  @Test
+  void transpositionTableCutsTheNodesOfAFixedDepthSearch() {
+    ChessBoard board = ChessBoard.initial();
+    AlphaBetaPlayer plain = new AlphaBetaPlayer(0);
+    AlphaBetaPlayer hashed = new AlphaBetaPlayer(1);
+    plain.chooseMoveFixedDepth(board, true, 5);
+    hashed.chooseMoveFixedDepth(board, true, 5);
+    long plainNodes = plain.lastStats().nodes();
+    long hashedNodes = hashed.lastStats().nodes();
+    assertTrue(hashedNodes < plainNodes, hashedNodes + " vs " + plainNodes + " nodes");
+    assertNull(plain.table());
+    TranspositionTable table = hashed.table();
+    assertTrue(table.hits() > 0 && table.hitRate() < 1);
+    assertTrue(table.fillPermille() > 0);
+  }
+
+  @Test
+  void lazySmpHelpersShareTheTableAndTheMainThreadReports() {
+    AlphaBetaPlayer player = new AlphaBetaPlayer(4, 4);
+    for (MonteCarloQuality.Position p : MonteCarloQuality.POSITIONS) {
+      ChessBoard board = ChessBoard.fromFen(p.fen());
+      ChessBoard.SimpleMove m = player.chooseMoveFixedDepth(board, true, 5).get().move();
+      assertEquals(p.bestMove(), Move.toString(m), p.fen());
+      assertEquals(5, player.lastStats().depth());
+    }
+
+    ChessBoard board =
+        ChessBoard.fromFen("r1bq1rk1/pp2bppp/2n1pn2/2pp4/3P4/2PBPN2/PP1N1PPP/R2QK2R w - - 0 1");
+    AlphaBetaPlayer single = new AlphaBetaPlayer(1, 4);
+    single.chooseMoveFixedDepth(board, true, 5);
+    player.chooseMoveFixedDepth(board, true, 5);
+    assertTrue(player.lastStats().nodes() > 0);
+    assertTrue(single.table().stores() > 0 && player.table().stores() > 0);
+
+    long start = System.nanoTime();
+    assertTrue(player.chooseMove(board, true, 100).isPresent());
+    long millis = (System.nanoTime() - start) / 1_000_000;
+    assertTrue(millis >= 100, millis + " ms");
+    assertThrows(IllegalArgumentException.class, () -> new AlphaBetaPlayer(2, 0));
+  }
+
+  @Test
+  void capturesAnExposedKingAndStopsDeepening() {
+    ChessBoard board = ChessBoard.fromFen("4k3/8/8/8/8/8/8/4R1K1 w - - 0 1");
+    AlphaBetaPlayer player = new AlphaBetaPlayer();
+    ChessBoard after = player.chooseMove(board, true, 2000).get().resultingState();
+    assertEquals(0, after.pieceCount(ChessBoard.BLACK_KING));
+    assertEquals(AlphaBetaPlayer.MATE, player.lastStats().score());
+    assertEquals(1, player.lastStats().depth());
+  }
+
+  @Test
+  void kingCapturesOutrankAWrongTableMove() {
+    ChessBoard board = ChessBoard.fromFen("4k3/8/8/8/8/8/8/4R1K1 w - - 0 1");
+    AlphaBetaPlayer player = new AlphaBetaPlayer(1);
+    // As a hash collision or another thread could leave it: Kg2 as the best move here
+    int kingMove = Move.encode(6, 14, ChessBoard.WHITE_KING, ChessBoard.EMPTY, 0);
+    player.table().store(board.zobristKey(), kingMove, 0, 1, TranspositionTable.LOWER);
+    ChessEngine.MoveChoice choice = player.chooseMoveFixedDepth(board, true, 2).get();
+    assertEquals("e1e8", Move.toString(choice.move()));
+    assertEquals(AlphaBetaPlayer.MATE, player.lastStats().score());
+  }
+
+  @Test
+  void timedSearchesDeepenUntilTheDeadline() {
+    ChessBoard board =
+        ChessBoard.fromFen("r1bq1rk1/pp2bppp/2n1pn2/2pp4/3P4/2PBPN2/PP1N1PPP/R2QK2R w - - 0 1");
+    AlphaBetaPlayer player = new AlphaBetaPlayer();
+    long start = System.nanoTime();
+    assertTrue(player.chooseMove(board, true, 200).isPresent());
+    long millis = (System.nanoTime() - start) / 1_000_000;
+    AlphaBetaPlayer.SearchStats stats = player.lastStats();
+    assertTrue(millis >= 200, millis + " ms");
+    assertTrue(stats.depth() >= 3, "depth " + stats.depth());
+    assertTrue(stats.nodesPerSecond() > 0);
+    assertThrows(IllegalArgumentException.class, () -> player.chooseMoveFixedDepth(board, true, 0));
+  }
+
+  // Full-width negamax with the player's scoring rules, for comparison.
+  private static int minimax(ChessBoard board, int depth, int ply, boolean white) {
+    if (depth == 0) return white ? board.evaluate() : -board.evaluate();
+    MoveList moves = new MoveList();
+    board.generateMoves(white, moves);
+    if (moves.isEmpty()) return 0;
+    for (int i = 0; i < moves.size(); i++) {
+      int captured = Move.captured(moves.get(i));
+      if (captured == ChessBoard.WHITE_KING || captured == ChessBoard.BLACK_KING) {
+        return AlphaBetaPlayer.MATE - ply;
+      }
+    }
+    int best = Integer.MIN_VALUE;
+    for (int i = 0; i < moves.size(); i++) {
+      board.makeMove(moves.get(i));
+      best = Math.max(best, -minimax(board, depth - 1, ply + 1, !white));
+      board.unmakeMove();
+    }
+    return best;
+  }
+}
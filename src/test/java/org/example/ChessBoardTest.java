@@ -102,4 +102,355 @@ public class ChessBoardTest {
     assertNotEquals(
         b.getAt(mv.fromFile(), mv.fromRank()), after.getAt(mv.fromFile(), mv.fromRank()));
   }
+
+  @Test
+  void generateSimpleMoves_pawnCapturesDoNotWrapAroundBoardEdges() {
+    ChessBoard b = ChessBoard.initial();
+    // Black pieces on the far files in front of white's a- and h-pawns
+    b.setAt(7, 2, 'n');
+    b.setAt(0, 2, 'n');
+    List<ChessBoard.SimpleMove> moves = b.generateSimpleMoves(true);
+    // a2 and h2 are now blocked; b2xa3 and g2xh3 become captures, no a2->h3 style wraps
+    assertTrue(moves.contains(new ChessBoard.SimpleMove(1, 1, 0, 2)));
+    assertTrue(moves.contains(new ChessBoard.SimpleMove(6, 1, 7, 2)));
+    assertFalse(moves.contains(new ChessBoard.SimpleMove(0, 1, 7, 2)));
+    assertFalse(moves.contains(new ChessBoard.SimpleMove(7, 1, 0, 2)));
+    assertFalse(moves.contains(new ChessBoard.SimpleMove(0, 1, 0, 2)));
+    // 20 opening moves minus four blocked rook-pawn pushes plus the two captures
+    assertEquals(18, moves.size());
+  }
+
+  @Test
+  void generateSimpleMoves_initialHas20ForBlack() {
+    ChessBoard b = ChessBoard.initial();
+    List<ChessBoard.SimpleMove> moves = b.generateSimpleMoves(false);
+    assertEquals(20, moves.size());
+    assertTrue(moves.contains(new ChessBoard.SimpleMove(4, 6, 4, 4)));
+    assertTrue(moves.contains(new ChessBoard.SimpleMove(6, 7, 5, 5)));
+  }
+
+  @Test
+  void setAtReplacesPieceAndKeepsMaterialInSync() {
+    ChessBoard b = ChessBoard.initial();
+    b.setAt(3, 7, 'N'); // black queen on d8 replaced by a white knight
+    assertEquals(ChessBoard.WHITE_KNIGHT, b.pieceAt(59));
+    assertEquals(900 + 320, b.evaluateMaterial());
+    assertThrows(IllegalArgumentException.class, () -> b.setAt(0, 0, 'x'));
+  }
+
+  @Test
+  void makeUnmakeRestoresPositionIncludingCaptures() {
+    ChessBoard b = ChessBoard.initial();
+    b.makeMove(new ChessBoard.SimpleMove(4, 1, 4, 3)); // e4
+    b.makeMove(new ChessBoard.SimpleMove(3, 6, 3, 4)); // d5
+    b.makeMove(new ChessBoard.SimpleMove(4, 3, 3, 4)); // exd5
+    assertEquals('P', b.getAt(3, 4));
+    assertEquals(100, b.evaluateMaterial());
+    assertEquals(3, b.undoDepth());
+    b.unmakeMove();
+    assertEquals('p', b.getAt(3, 4));
+    assertEquals('P', b.getAt(4, 3));
+    b.unmakeMove();
+    b.unmakeMove();
+    assertEquals(0, b.undoDepth());
+    ChessBoard fresh = ChessBoard.initial();
+    for (int r = 0; r < 8; r++) {
+      for (int f = 0; f < 8; f++) {
+        assertEquals(fresh.getAt(f, r), b.getAt(f, r));
+      }
+    }
+    assertThrows(IllegalStateException.class, b::unmakeMove);
+  }
+
+  @Test
+  void movesFromAnEmptySquareAreRejected() {
+    ChessBoard b = ChessBoard.initial();
+    ChessBoard.SimpleMove fromEmpty = new ChessBoard.SimpleMove(4, 3, 4, 4); // e4-e5
+    assertThrows(IllegalArgumentException.class, () -> b.makeMove(fromEmpty));
+    assertThrows(IllegalArgumentException.class, () -> b.apply(fromEmpty));
+    assertEquals(ChessBoard.initial(), b);
+    assertEquals(0, b.undoDepth());
+    assertEquals(ChessBoard.initial().zobristKey(), b.zobristKey());
+  }
+
+  @Test
+  void generateMovesFillsPackedListMatchingSimpleMoves() {
+    ChessBoard b = ChessBoard.initial();
+    b.makeMove(new ChessBoard.SimpleMove(4, 1, 4, 3)); // e4
+    b.makeMove(new ChessBoard.SimpleMove(3, 6, 3, 4)); // d5
+    MoveList list = new MoveList(1); // forces the buffer to grow
+    b.generateMoves(true, list);
+    List<ChessBoard.SimpleMove> simple = b.generateSimpleMoves(true);
+    assertEquals(simple.size(), list.size());
+    int captures = 0;
+    for (int i = 0; i < list.size(); i++) {
+      int mv = list.get(i);
+      assertEquals(simple.get(i), Move.toSimpleMove(mv));
+      if (Move.isCapture(mv)) {
+        captures++;
+        assertEquals("e4d5", Move.toString(mv));
+        assertEquals(ChessBoard.WHITE_PAWN, Move.piece(mv));
+        assertEquals(ChessBoard.BLACK_PAWN, Move.captured(mv));
+      }
+    }
+    assertEquals(1, captures);
+  }
+
+  @Test
+  void zobristKeyIsIncrementalAndDetectsTranspositions() {
+    ChessBoard a = ChessBoard.initial();
+    assertEquals(a.computeZobristKey(), a.zobristKey());
+    // 1.Nf3 Nf6 2.Nc3 versus 1.Nc3 Nf6 2.Nf3
+    a.makeMove(new ChessBoard.SimpleMove(6, 0, 5, 2));
+    a.makeMove(new ChessBoard.SimpleMove(6, 7, 5, 5));
+    a.makeMove(new ChessBoard.SimpleMove(1, 0, 2, 2));
+    ChessBoard b =
+        ChessBoard.initial()
+            .apply(new ChessBoard.SimpleMove(1, 0, 2, 2))
+            .apply(new ChessBoard.SimpleMove(6, 7, 5, 5))
+            .apply(new ChessBoard.SimpleMove(6, 0, 5, 2));
+    assertFalse(a.whiteToMove());
+    assertEquals(a.computeZobristKey(), a.zobristKey());
+    assertEquals(a.zobristKey(), b.zobristKey());
+    assertEquals(a, b);
+    assertEquals(a.hashCode(), b.hashCode());
+    // Same pieces, other side to move
+    b.setWhiteToMove(true);
+    assertNotEquals(a.zobristKey(), b.zobristKey());
+    assertNotEquals(a, b);
+    // Unmaking restores the exact key, and setAt keeps it in sync as well
+    a.unmakeMove();
+    a.unmakeMove();
+    a.unmakeMove();
+    assertEquals(ChessBoard.initial().zobristKey(), a.zobristKey());
+    a.setAt(4, 4, 'Q');
+    assertEquals(a.computeZobristKey(), a.zobristKey());
+  }
+
+  @Test
+  void generateMovesCoversAllPieceTypes() {
+    ChessBoard b = new ChessBoard();
+    b.setAt(3, 3, 'Q'); // d4: 27 squares on an otherwise empty board
+    b.setAt(7, 0, 'K'); // h1: g1, g2, h2
+    b.setAt(7, 7, 'b'); // h8 bishop blocks nothing the queen needs
+    MoveList list = new MoveList();
+    b.generateMoves(true, list);
+    assertEquals(27 + 3, list.size());
+    // Rook on a1 behind its own pawn on a3 and next to an enemy knight on b1
+    ChessBoard r = new ChessBoard();
+    r.setAt(0, 0, 'R');
+    r.setAt(0, 2, 'P');
+    r.setAt(1, 0, 'n');
+    List<ChessBoard.SimpleMove> moves = r.generateSimpleMoves(true);
+    assertTrue(moves.contains(new ChessBoard.SimpleMove(0, 0, 0, 1)));
+    assertTrue(moves.contains(new ChessBoard.SimpleMove(0, 0, 1, 0)));
+    assertFalse(moves.contains(new ChessBoard.SimpleMove(0, 0, 0, 2)));
+    assertFalse(moves.contains(new ChessBoard.SimpleMove(0, 0, 2, 0)));
+    assertEquals(2 + 1, moves.size()); // a2, xb1, pawn a4
+  }
+
+  @Test
+  void magicSlidingAttacksMatchRayWalk() {
+    java.util.Random rng = new java.util.Random(42);
+    for (int i = 0; i < 2000; i++) {
+      long occupied = rng.nextLong() & rng.nextLong();
+      int sq = rng.nextInt(64);
+      assertEquals(rayWalk(sq, occupied, true), Bitboards.bishopAttacks(sq, occupied));
+      assertEquals(rayWalk(sq, occupied, false), Bitboards.rookAttacks(sq, occupied));
+    }
+    assertTrue(Bitboards.tableBytes() > 0);
+  }
+
+  @Test
+  void isInCheckSeesSlidersThroughEmptySquaresOnly() {
+    ChessBoard b = new ChessBoard();
+    b.setAt(4, 0, 'K'); // e1
+    b.setAt(4, 7, 'r'); // e8
+    assertTrue(b.isInCheck(true));
+    b.setAt(4, 3, 'P'); // e4 blocks the file
+    assertFalse(b.isInCheck(true));
+    b.setAt(3, 1, 'p'); // d2 pawn attacks e1
+    assertTrue(b.isInCheck(true));
+    assertTrue(b.isSquareAttacked(Bitboards.square(2, 0), false)); // c1 by the same pawn
+    assertFalse(b.isInCheck(false)); // Black has no king
+  }
+
+  private static long rayWalk(int sq, long occupied, boolean diagonal) {
+    int[][] dirs =
+        diagonal
+            ? new int[][] {{1, 1}, {1, -1}, {-1, 1}, {-1, -1}}
+            : new int[][] {{1, 0}, {-1, 0}, {0, 1}, {0, -1}};
+    long attacks = 0L;
+    for (int[] d : dirs) {
+      int f = sq % 8 + d[0];
+      int r = sq / 8 + d[1];
+      while (f >= 0 && f < 8 && r >= 0 && r < 8) {
+        attacks |= 1L << (r * 8 + f);
+        if ((occupied & (1L << (r * 8 + f))) != 0) {
+          break;
+        }
+        f += d[0];
+        r += d[1];
+      }
+    }
+    return attacks;
+  }
+
+  @Test
+  void incrementalEvaluationMatchesRecomputationAlongAGame() {
+    ChessBoard b = ChessBoard.initial();
+    assertEquals(0, b.evaluate());
+    MoveList moves = new MoveList();
+    java.util.Random rng = new java.util.Random(7);
+    for (int ply = 0; ply < 60; ply++) {
+      b.generateMoves(b.whiteToMove(), moves);
+      if (moves.isEmpty()) {
+        break;
+      }
+      b.makeMove(moves.get(rng.nextInt(moves.size())));
+      assertEquals(b.computeEvaluation(), b.evaluate());
+      assertEquals(b.computeMaterial(), b.evaluateMaterial());
+    }
+    while (b.undoDepth() > 0) {
+      b.unmakeMove();
+    }
+    assertEquals(0, b.evaluate());
+    // A knight in the centre is worth more than one on the rim
+    ChessBoard centre = new ChessBoard();
+    centre.setAt(3, 3, 'N');
+    ChessBoard rim = new ChessBoard();
+    rim.setAt(0, 3, 'N');
+    assertTrue(centre.evaluate() > rim.evaluate());
+    assertEquals(320, centre.evaluateMaterial());
+  }
+
+  @Test
+  void pieceListsTrackEveryMoveAndUndo() {
+    ChessBoard b = ChessBoard.initial();
+    assertEquals(8, b.pieceCount(ChessBoard.WHITE_PAWN));
+    assertEquals(1, b.pieceCount(ChessBoard.BLACK_KING));
+    assertEquals(60, b.pieceSquare(ChessBoard.BLACK_KING, 0));
+    assertThrows(IndexOutOfBoundsException.class, () -> b.pieceSquare(ChessBoard.WHITE_KING, 1));
+    MoveList moves = new MoveList();
+    java.util.Random rng = new java.util.Random(11);
+    for (int ply = 0; ply < 80; ply++) {
+      b.generateMoves(b.whiteToMove(), moves);
+      if (moves.isEmpty()) {
+        break;
+      }
+      b.makeMove(moves.get(rng.nextInt(moves.size())));
+      assertPieceListsConsistent(b);
+    }
+    while (b.undoDepth() > 0) {
+      b.unmakeMove();
+      assertPieceListsConsistent(b);
+    }
+    assertEquals(ChessBoard.initial(), b);
+  }
+
+  private static void assertPieceListsConsistent(ChessBoard b) {
+    int total = 0;
+    for (int piece = ChessBoard.WHITE_PAWN; piece <= ChessBoard.BLACK_KING; piece++) {
+      long seen = 0L;
+      for (int i = 0; i < b.pieceCount(piece); i++) {
+        int sq = b.pieceSquare(piece, i);
+        assertEquals(piece, b.pieceAt(sq));
+        seen |= 1L << sq;
+      }
+      assertEquals(b.pieceCount(piece), Long.bitCount(seen));
+      total += b.pieceCount(piece);
+    }
+    int occupied = 0;
+    for (int sq = 0; sq < 64; sq++) {
+      if (b.pieceAt(sq) != ChessBoard.EMPTY) {
+        occupied++;
+      }
+    }
+    assertEquals(occupied, total);
+  }
+
+  @Test
+  void fenRoundTripsAndLoadsIntoAReusedBoard() {
+    assertEquals(ChessBoard.initial(), ChessBoard.fromFen(ChessBoard.INITIAL_FEN));
+    assertEquals(ChessBoard.INITIAL_FEN, ChessBoard.initial().toFen());
+    String[] fens = {
+      "r1bqk1nr/pppp1ppp/2n5/2b1p3/2B1P3/5N2/PPPP1PPP/RNBQK2R w KQkq - 4 4",
+      "rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b Kq e3 0 3",
+      "8/2k5/2p2p2/8/3P2P1/4K3/6R1/r7 b - - 17 52",
+    };
+    ChessBoard b = ChessBoard.initial();
+    b.makeMove(new ChessBoard.SimpleMove(4, 1, 4, 3));
+    for (String fen : fens) {
+      b.loadFen(fen);
+      assertEquals(fen, b.toFen());
+      assertEquals(b.computeZobristKey(), b.zobristKey());
+      assertEquals(b.computeEvaluation(), b.evaluate());
+      assertEquals(0, b.undoDepth());
+      byte[] line = ("  " + fen + "\r\n").getBytes(java.nio.charset.StandardCharsets.US_ASCII);
+      ChessBoard fromBytes = new ChessBoard();
+      fromBytes.loadFen(line, 2, line.length - 2);
+      assertEquals(b, fromBytes);
+      assertEquals(fen, fromBytes.appendFen(new StringBuilder()).toString());
+    }
+    b.loadFen("rnbqkbnr/ppp1pppp/8/8/3pP3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 3");
+    assertEquals(Bitboards.square(4, 2), b.enPassantSquare());
+    assertEquals(
+        ChessBoard.WHITE_KINGSIDE | ChessBoard.BLACK_QUEENSIDE,
+        ChessBoard.fromFen(fens[1]).castlingRights());
+    // EPD-style records omit the counters; an en-passant square no pawn can use is dropped
+    ChessBoard epd = ChessBoard.fromFen("4k3/8/8/8/4P3/8/8/4K3 b - e3");
+    assertEquals("4k3/8/8/8/4P3/8/8/4K3 b - - 0 1", epd.toFen());
+  }
+
+  @Test
+  void malformedFenIsRejectedAndLeavesAnEmptyBoard() {
+    String[] bad = {
+      "",
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1",
+      "rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1",
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNX w KQkq - 0 1",
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR x KQkq - 0 1",
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkx - 0 1",
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq e4 0 1",
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - zero 1",
+      "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1 extra",
+    };
+    ChessBoard b = new ChessBoard();
+    for (String fen : bad) {
+      assertThrows(IllegalArgumentException.class, () -> b.loadFen(fen), fen);
+      assertEquals(new ChessBoard(), b);
+      assertEquals(0, b.evaluate());
+    }
+  }
+
+  @Test
+  void makeMoveTracksEnPassantCastlingAndCountersAndUnmakeRestoresThem() {
+    ChessBoard b = ChessBoard.fromFen("r3k2r/8/8/8/5p2/8/4P3/R3K2R w KQkq - 3 20");
+    long startKey = b.zobristKey();
+    b.makeMove(new ChessBoard.SimpleMove(4, 1, 4, 3)); // e4, the f4 pawn may take en passant
+    assertEquals("r3k2r/8/8/8/4Pp2/8/8/R3K2R b KQkq e3 0 20", b.toFen());
+    MoveList moves = new MoveList();
+    b.generateMoves(false, moves);
+    int enPassant = Move.NONE;
+    for (int i = 0; i < moves.size(); i++) {
+      if ((Move.flags(moves.get(i)) & Move.FLAG_EN_PASSANT) != 0) enPassant = moves.get(i);
+    }
+    assertEquals("f4e3", Move.toString(enPassant));
+    assertEquals(ChessBoard.WHITE_PAWN, Move.captured(enPassant));
+    ChessBoard snapshot = b.apply(enPassant);
+    b.makeMove(enPassant);
+    assertEquals("r3k2r/8/8/8/8/4p3/8/R3K2R w KQkq - 0 21", b.toFen());
+    assertEquals(snapshot, b);
+    b.makeMove(new ChessBoard.SimpleMove(0, 0, 0, 7)); // Rxa8 drops White's and Black's queenside
+    assertEquals("R3k2r/8/8/8/8/4p3/8/4K2R b Kk - 0 21", b.toFen());
+    assertEquals(b.computeZobristKey(), b.zobristKey());
+    b.makeMove(new ChessBoard.SimpleMove(4, 7, 4, 6)); // Ke7 drops Black's kingside
+    assertEquals("R6r/4k3/8/8/8/4p3/8/4K2R w K - 1 22", b.toFen());
+    b.unmakeMove();
+    b.unmakeMove();
+    b.unmakeMove();
+    b.unmakeMove();
+    assertEquals("r3k2r/8/8/8/5p2/8/4P3/R3K2R w KQkq - 3 20", b.toFen());
+    assertEquals(startKey, b.zobristKey());
+  }
 }
@@ -0,0 +1,220 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Optional;
+import org.junit.jupiter.api.Test;
+
+public class MonteCarloPlayerTest {
+
+  @Test
+  void seededSearchesAreReproducible() {
+    ChessBoard board = ChessBoard.initial();
+    Optional<MonteCarloPlayer.MoveChoice> a =
+        MonteCarloPlayer.chooseMoveFixedIterations(board, true, 500, 3L);
+    Optional<MonteCarloPlayer.MoveChoice> b =
+        MonteCarloPlayer.chooseMoveFixedIterations(board, true, 500, 3L);
+    assertTrue(a.isPresent());
+    assertEquals(a.get().move(), b.get().move());
+    assertEquals(a.get().resultingState(), b.get().resultingState());
+    assertEquals(ChessBoard.initial(), board);
+  }
+
+  @Test
+  void treeIsReusedAfterTheOpponentReplies() {
+    MonteCarloPlayer player = new MonteCarloPlayer(5L);
+    Optional<MonteCarloPlayer.MoveChoice> first =
+        player.chooseMoveFixedIterations(ChessBoard.initial(), true, 3000);
+    assertTrue(first.isPresent());
+    MonteCarloPlayer.SearchStats stats = player.lastStats();
+    assertEquals(3000, stats.iterations());
+    assertEquals(0, stats.reusedVisits());
+    assertEquals(3000, stats.rootVisits());
+
+    // Any reply: the chosen move's node has been expanded for every black move by now
+    ChessBoard afterReply = first.get().resultingState();
+    MoveList replies = new MoveList();
+    afterReply.generateMoves(false, replies);
+    afterReply.makeMove(replies.get(0));
+    player.chooseMoveFixedIterations(afterReply, true, 1000);
+    stats = player.lastStats();
+    assertTrue(stats.reusedVisits() > 0, "reused " + stats.reusedVisits());
+    assertEquals(stats.reusedVisits() + 1000, stats.rootVisits());
+
+    // A position outside the tree starts over; searching it again continues, unless cleared
+    ChessBoard endgame = ChessBoard.fromFen("4k3/8/8/8/8/8/8/R3K3 w - - 0 1");
+    player.chooseMoveFixedIterations(endgame, true, 10);
+    assertEquals(0, player.lastStats().reusedVisits());
+    player.chooseMoveFixedIterations(endgame, true, 10);
+    assertEquals(10, player.lastStats().reusedVisits());
+    player.clearTree();
+    player.chooseMoveFixedIterations(endgame, true, 10);
+    assertEquals(0, player.lastStats().reusedVisits());
+  }
+
+  @Test
+  void sharedTreeSearchRunsTheExactIterationBudget() {
+    MonteCarloPlayer player = new MonteCarloPlayer(4, 9L);
+    ChessBoard board =
+        ChessBoard.fromFen("r1bq1rk1/pp2bppp/2n1pn2/2pp4/3P4/2PBPN2/PP1N1PPP/R2QK2R w - - 0 1");
+    Optional<MonteCarloPlayer.MoveChoice> choice =
+        player.chooseMoveFixedIterations(board, true, 4000);
+    assertTrue(choice.isPresent());
+    assertEquals(4000, player.lastStats().iterations());
+    assertEquals(4000, player.lastStats().rootVisits());
+    ChessBoard.SimpleMove move = choice.get().move();
+    assertTrue(board.generateSimpleMoves(true).contains(move));
+    assertThrows(IllegalArgumentException.class, () -> new MonteCarloPlayer(0, 1L));
+  }
+
+  @Test
+  void transposedMoveOrdersShareNodes() {
+    MonteCarloPlayer player = new MonteCarloPlayer(1L);
+    player.chooseMoveFixedIterations(ChessBoard.initial(), true, 20000);
+    MonteCarloPlayer.SearchStats stats = player.lastStats();
+    assertTrue(stats.transpositions() > 0, "transpositions " + stats.transpositions());
+    assertEquals(20000, stats.rootVisits());
+  }
+
+  @Test
+  void raveFindsWinningCapturesWithFewerIterations() {
+    double uct = MonteCarloQuality.accuracy(MonteCarloQuality.POSITIONS, 0, 160, 10);
+    double rave = MonteCarloQuality.accuracy(MonteCarloQuality.POSITIONS, 300, 160, 10);
+    assertTrue(rave > uct, "RAVE " + rave + " vs UCT " + uct);
+    assertThrows(IllegalArgumentException.class, () -> new MonteCarloPlayer(1L).withRave(-1));
+  }
+
+  @Test
+  void quiescenceLeavesFindWinningCapturesWithFewerIterations() {
+    double rollouts = MonteCarloQuality.accuracy(MonteCarloQuality.POSITIONS, 0, false, 40, 10);
+    double quiescence = MonteCarloQuality.accuracy(MonteCarloQuality.POSITIONS, 0, true, 40, 10);
+    assertTrue(quiescence > rollouts, "quiescence " + quiescence + " vs rollouts " + rollouts);
+  }
+
+  @Test
+  void seededRootParallelSearchesAreReproducibleAndTimedSearchesStopOnTime() {
+    ChessBoard board = ChessBoard.initial();
+    MonteCarloPlayer a = MonteCarloPlayer.rootParallel(3, 21L).withRave(300);
+    MonteCarloPlayer b = MonteCarloPlayer.rootParallel(3, 21L).withRave(300);
+    for (int search = 0; search < 2; search++) {
+      Optional<MonteCarloPlayer.MoveChoice> choice = a.chooseMoveFixedIterations(board, true, 2000);
+      assertEquals(choice, b.chooseMoveFixedIterations(board, true, 2000));
+      assertEquals(a.lastStats().rootVisits(), b.lastStats().rootVisits());
+      assertEquals(a.lastStats().treeNodes(), b.lastStats().treeNodes());
+      assertEquals(a.lastStats().transpositions(), b.lastStats().transpositions());
+    }
+
+    MonteCarloPlayer timed = new MonteCarloPlayer(2, 3L);
+    long start = System.nanoTime();
+    assertTrue(timed.chooseMove(board, true, 50).isPresent());
+    long millis = (System.nanoTime() - start) / 1_000_000;
+    long saved = timed.lastStats().savedMillis();
+    assertTrue(millis + saved >= 49, millis + " ms, " + saved + " ms saved");
+    assertTrue(timed.lastStats().iterations() > 0);
+  }
+
+  @Test
+  void timedSearchesStopOnceTheBestRootMoveCannotBeOvertaken() {
+    // Winning the queen collects nearly all visits long before the deadline
+    ChessBoard board =
+        ChessBoard.fromFen("rnb1kbnr/pppp1ppp/8/4p3/3q4/4P3/PPPP1PPP/RNBQKBNR w KQkq - 0 3");
+    MonteCarloPlayer player = new MonteCarloPlayer(7L);
+    Optional<MonteCarloPlayer.MoveChoice> choice = player.chooseMove(board, true, 2000);
+    assertEquals(new ChessBoard.SimpleMove(4, 2, 3, 3), choice.get().move());
+    MonteCarloPlayer.SearchStats stats = player.lastStats();
+    assertTrue(stats.savedMillis() > 0, "saved " + stats.savedMillis());
+
+    // Fixed-iteration searches always run their iterations
+    player.chooseMoveFixedIterations(board, true, 3000);
+    assertEquals(3000, player.lastStats().iterations());
+    assertEquals(0L, player.lastStats().savedMillis());
+  }
+
+  @Test
+  void ponderHitsKeepThePonderTreeAndMissesDropIt() throws InterruptedException {
+    ChessBoard board =
+        ChessBoard.fromFen("rnb1kbnr/pppp1ppp/8/4p3/3q4/4P3/PPPP1PPP/RNBQKBNR w KQkq - 0 3");
+    MonteCarloPlayer player = new MonteCarloPlayer(2, 9L);
+    ChessBoard after = player.chooseMoveFixedIterations(board, true, 5000).get().resultingState();
+    ChessBoard.SimpleMove predicted = player.ponder().get();
+    Thread.sleep(300);
+    ChessBoard hit = after.apply(predicted);
+    // Pondering took longer than the budget, so the search only gets the 10 ms minimum
+    assertTrue(player.chooseMove(hit, true, 200).isPresent());
+    MonteCarloPlayer.SearchStats stats = player.lastStats();
+    assertEquals(MonteCarloPlayer.Ponder.HIT, stats.ponder());
+    assertTrue(stats.reusedVisits() > 0, "reused " + stats.reusedVisits());
+    // Any time saved by stopping early comes out of the deducted budget
+    assertTrue(stats.savedMillis() <= 10, "saved " + stats.savedMillis());
+
+    ChessBoard next = player.chooseMoveFixedIterations(hit, true, 2000).get().resultingState();
+    predicted = player.ponder().get();
+    MoveList replies = new MoveList();
+    next.generateMoves(false, replies);
+    int other = Move.NONE;
+    for (int i = 0; i < replies.size() && other == Move.NONE; i++) {
+      if (!Move.toSimpleMove(replies.get(i)).equals(predicted)) other = replies.get(i);
+    }
+    player.chooseMoveFixedIterations(next.apply(other), true, 500);
+    assertEquals(MonteCarloPlayer.Ponder.MISS, player.lastStats().ponder());
+    assertEquals(0, player.lastStats().reusedVisits());
+
+    player.chooseMoveFixedIterations(next.apply(other), true, 500);
+    assertEquals(MonteCarloPlayer.Ponder.NONE, player.lastStats().ponder());
+  }
+
+  @Test
+  void nodeBudgetIsKeptByPruningWhileTheSearchGoesOn() {
+    ChessBoard board =
+        ChessBoard.fromFen("r1bq1rk1/pp2bppp/2n1pn2/2pp4/3P4/2PBPN2/PP1N1PPP/R2QK2R w - - 0 1");
+    for (int threads : new int[] {1, 4}) {
+      MonteCarloPlayer player = new MonteCarloPlayer(threads, 13L).withNodeBudget(2000);
+      assertTrue(player.chooseMoveFixedIterations(board, true, 20000).isPresent());
+      MonteCarloPlayer.SearchStats stats = player.lastStats();
+      assertEquals(20000, stats.iterations());
+      assertEquals(20000, stats.rootVisits());
+      assertTrue(stats.prunings() > 0, "prunings " + stats.prunings());
+      assertTrue(stats.treeNodes() <= 2000, "nodes " + stats.treeNodes());
+      assertTrue(stats.treeBytes() > 0);
+    }
+    assertThrows(IllegalArgumentException.class, () -> new MonteCarloPlayer(1L).withNodeBudget(8));
+  }
+
+  @Test
+  void rootParallelEnsembleMergesRootStatistics() {
+    MonteCarloPlayer player = MonteCarloPlayer.rootParallel(3, 11L);
+    ChessBoard board = ChessBoard.initial();
+    Optional<MonteCarloPlayer.MoveChoice> choice =
+        player.chooseMoveFixedIterations(board, true, 3000);
+    assertTrue(choice.isPresent());
+    assertTrue(board.generateSimpleMoves(true).contains(choice.get().move()));
+    assertEquals(3000, player.lastStats().iterations());
+    assertEquals(3000, player.lastStats().rootVisits());
+    // Each of the three trees is reused after the reply
+    ChessBoard next = choice.get().resultingState();
+    next.makeMove(new ChessBoard.SimpleMove(4, 6, 4, 4)); // e5
+    player.chooseMoveFixedIterations(next, true, 300);
+    assertTrue(player.lastStats().reusedVisits() > 0);
+  }
+
+  @Test
+  void matchGamesEndOnKingCaptureOrAdjudication() {
+    MonteCarloPlayer white = new MonteCarloPlayer(1L);
+    MonteCarloPlayer black = new MonteCarloPlayer(2L);
+    assertEquals(
+        1,
+        MonteCarloMatch.playGame(
+            ChessBoard.fromFen("8/8/8/8/8/8/8/4K3 w - - 0 1"), white, black, 10, 10));
+    assertEquals(
+        -1,
+        MonteCarloMatch.playGame(
+            ChessBoard.fromFen("4k3/8/8/8/8/8/8/q7 w - - 0 1"), white, black, 10, 0));
+    assertEquals(
+        0,
+        MonteCarloMatch.playGame(
+            ChessBoard.fromFen("4k3/8/8/8/8/8/8/4K3 w - - 0 1"), white, black, 10, 2));
+    MonteCarloMatch.Score score = new MonteCarloMatch.Score(3, 2, 1);
+    assertEquals(4.0, score.points());
+    assertTrue(score.eloDifference() > 0);
+  }
+}
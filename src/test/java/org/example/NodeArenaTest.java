@@ -0,0 +1,154 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class NodeArenaTest {
+
+  @Test
+  void expansionIsClaimedOnceAndChildrenAreAllocatedLazily() {
+    NodeArena arena = new NodeArena(4, 8);
+    MoveList moves = new MoveList();
+    ChessBoard.initial().generateMoves(true, moves);
+    MoveList few = new MoveList();
+    for (int i = 0; i < 3; i++) few.add(moves.get(i));
+
+    int root = arena.newNode(1L);
+    int first = arena.expand(root, few);
+    assertEquals(0, first);
+    assertEquals(3, arena.edgeCount[root]);
+    assertEquals(first, arena.expand(root, few), "second expansion returns the existing edges");
+    assertEquals(3, arena.edgeCount());
+    assertEquals(1, arena.nodeCount());
+
+    int child = arena.child(first + 1, 2L);
+    assertEquals(child, arena.child(first + 1, 2L));
+    assertEquals(NodeArena.NONE, arena.edgeChild.get(first));
+    assertEquals(NodeArena.LEAF, arena.firstEdge.get(child));
+
+    // Out of edge space: the node stays unexpandable; out of node space: no child
+    assertEquals(NodeArena.UNEXPANDABLE, arena.expand(child, moves));
+    arena.child(first, 3L);
+    arena.child(first + 2, 4L);
+    assertEquals(4, arena.nodeCount());
+    assertEquals(NodeArena.NONE, arena.newNode(5L));
+  }
+
+  @Test
+  void copySubtreeCompactsWithTheRootAtHandleZero() {
+    NodeArena arena = new NodeArena(16, 64);
+    MoveList moves = new MoveList();
+    ChessBoard board = ChessBoard.initial();
+    board.generateMoves(true, moves);
+    int root = arena.newNode(board.zobristKey());
+    int first = arena.expand(root, moves);
+    int kept = arena.child(first + 5, 100L);
+    arena.child(first + 7, 101L); // sibling, not copied
+    board.makeMove(moves.get(5));
+    MoveList replies = new MoveList();
+    board.generateMoves(false, replies);
+    int keptFirst = arena.expand(kept, replies);
+    int grandchild = arena.child(keptFirst + 2, 200L);
+    arena.visits.set(kept, 7);
+    arena.valueSum.set(kept, -120);
+    arena.visits.set(grandchild, 3);
+    arena.valueSum.set(grandchild, 45);
+
+    NodeArena target = new NodeArena(16, 64);
+    arena.copySubtree(kept, target);
+    assertEquals(2, target.nodeCount());
+    assertEquals(replies.size(), target.edgeCount());
+    assertEquals(7, target.visits.get(0));
+    assertEquals(-120, target.valueSum.get(0));
+    int copiedFirst = target.firstEdge.get(0);
+    for (int i = 0; i < replies.size(); i++) {
+      assertEquals(replies.get(i), target.edgeMove[copiedFirst + i]);
+    }
+    int copiedGrandchild = target.edgeChild.get(copiedFirst + 2);
+    assertEquals(1, copiedGrandchild);
+    assertEquals(3, target.visits.get(copiedGrandchild));
+    assertEquals(45, target.valueSum.get(copiedGrandchild));
+    assertEquals(NodeArena.LEAF, target.firstEdge.get(copiedGrandchild));
+    assertEquals(copiedGrandchild, target.find(200L));
+    assertEquals(NodeArena.NONE, target.find(101L));
+  }
+
+  @Test
+  void copyWithAVisitCutoffKeepsRarelyVisitedNodesAsLeaves() {
+    ChessBoard board = ChessBoard.initial();
+    NodeArena arena = new NodeArena(16, 128);
+    int root = arena.newNode(0L); // keys with distinct table buckets
+    int first = arena.expand(root, moves(board, "e2e4", "d2d4"));
+    int often = arena.child(first, 2L);
+    int rarely = arena.child(first + 1, 4L);
+    arena.visits.set(root, 12);
+    arena.visits.set(often, 10);
+    arena.visits.set(rarely, 2);
+    board.makeMove(moves(board, "e2e4").get(0));
+    int oftenFirst = arena.expand(often, moves(board, "e7e5", "c7c5"));
+    arena.child(oftenFirst, 6L);
+    board.unmakeMove();
+    board.makeMove(moves(board, "d2d4").get(0));
+    int rarelyFirst = arena.expand(rarely, moves(board, "d7d5"));
+    arena.child(rarelyFirst, 8L);
+
+    NodeArena target = new NodeArena(16, 128);
+    arena.copySubtree(root, target, 5);
+    assertEquals(4, target.nodeCount());
+    int copiedRarely = target.find(4L);
+    assertEquals(2, target.visits.get(copiedRarely));
+    assertEquals(NodeArena.LEAF, target.firstEdge.get(copiedRarely));
+    assertEquals(NodeArena.NONE, target.find(8L));
+    assertEquals(2, target.edgeCount[target.find(2L)]);
+  }
+
+  @Test
+  void transposedMoveOrdersShareOneNodeAlsoAfterCopying() {
+    // 1.Nf3 Nf6 2.e4 and 1.e4 Nf6 2.Nf3 reach the same position
+    ChessBoard viaKnight = ChessBoard.initial();
+    ChessBoard viaPawn = ChessBoard.initial();
+    NodeArena arena = new NodeArena(8, 64);
+    int root = arena.newNode(viaKnight.zobristKey());
+    int rootFirst = arena.expand(root, moves(viaKnight, "g1f3", "e2e4"));
+    int knightLine = arena.child(rootFirst, play(viaKnight, "g1f3", "g8f6"));
+    int pawnLine = arena.child(rootFirst + 1, play(viaPawn, "e2e4", "g8f6"));
+    int a = arena.expand(knightLine, moves(viaKnight, "e2e4"));
+    int b = arena.expand(pawnLine, moves(viaPawn, "g1f3"));
+    int shared = arena.child(a, play(viaKnight, "e2e4"));
+    assertEquals(shared, arena.child(b, play(viaPawn, "g1f3")));
+    assertEquals(4, arena.nodeCount());
+    assertEquals(1, arena.transpositions());
+
+    NodeArena target = new NodeArena(8, 64);
+    arena.copySubtree(root, target);
+    assertEquals(4, target.nodeCount());
+    assertEquals(1, target.transpositions());
+    int copiedA = target.edgeChild.get(target.firstEdge.get(target.edgeChild.get(0)));
+    int copiedB = target.edgeChild.get(target.firstEdge.get(target.edgeChild.get(1)));
+    assertEquals(copiedA, copiedB);
+    assertEquals(copiedA, target.find(viaPawn.zobristKey()));
+  }
+
+  // The listed moves of the side to move, in coordinate notation.
+  private static MoveList moves(ChessBoard board, String... names) {
+    MoveList all = new MoveList();
+    board.generateMoves(board.whiteToMove(), all);
+    MoveList moves = new MoveList();
+    for (String name : names) {
+      for (int i = 0; i < all.size(); i++) {
+        if (Move.toString(all.get(i)).equals(name)) moves.add(all.get(i));
+      }
+    }
+    assertEquals(names.length, moves.size());
+    return moves;
+  }
+
+  // Plays the moves and returns the key of the resulting position.
+  private static long play(ChessBoard board, String... names) {
+    for (String name : names) {
+      board.makeMove(moves(board, name).get(0));
+    }
+    return board.zobristKey();
+  }
+}
@@ -0,0 +1,53 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import java.util.Map;
+import org.junit.jupiter.api.Test;
+
+public class PerftTest {
+
+  @Test
+  void initialPositionMatchesReferenceCounts() {
+    // Published values; no castling or promotion occurs before depth 6
+    long[] expected = {1, 20, 400, 8902, 197281};
+    Perft perft = new Perft();
+    for (int depth = 0; depth < expected.length; depth++) {
+      assertEquals(expected[depth], perft.count(ChessBoard.initial(), depth), "depth " + depth);
+    }
+  }
+
+  @Test
+  void hashedAndParallelCountsAgreeWithPlainCount() {
+    ChessBoard b = ChessBoard.initial();
+    b.makeMove(new ChessBoard.SimpleMove(4, 1, 4, 3)); // e4
+    b.makeMove(new ChessBoard.SimpleMove(3, 6, 3, 4)); // d5
+    long plain = new Perft().count(b, 4);
+    assertEquals(plain, new Perft(1).count(b, 4));
+    assertEquals(plain, new Perft(1).countParallel(b, 4));
+    assertEquals(plain, new Perft().countParallel(b, 4));
+    // counting leaves the board as it was
+    assertEquals(2, b.undoDepth());
+    assertEquals(b.computeZobristKey(), b.zobristKey());
+  }
+
+  @Test
+  void divideSplitsCountByRootMove() {
+    Map<String, Long> divide = new Perft().divide(ChessBoard.initial(), 3);
+    assertEquals(20, divide.size());
+    assertEquals(8902L, divide.values().stream().mapToLong(Long::longValue).sum());
+    assertEquals(600L, divide.get("e2e4").longValue());
+    assertEquals(440L, divide.get("g1f3").longValue());
+  }
+
+  @Test
+  void position3WithEnPassantMatchesReferenceCounts() {
+    ChessBoard b = ChessBoard.fromFen("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1");
+    long[] expected = {1, 14, 191, 2812, 43238};
+    Perft perft = new Perft(1);
+    for (int depth = 0; depth < expected.length; depth++) {
+      assertEquals(expected[depth], perft.count(b, depth), "depth " + depth);
+    }
+    assertEquals("8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1", b.toFen());
+  }
+}
@@ -0,0 +1,57 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class QuiescenceTest {
+  private static final int INFINITY = AlphaBetaPlayer.MATE + 1;
+
+  @Test
+  void quietPositionsScoreTheirStaticEvaluation() {
+    Quiescence quiescence = new Quiescence();
+    ChessBoard board = ChessBoard.initial();
+    assertEquals(board.evaluate(), quiescence.search(board, true, -INFINITY, INFINITY, 0));
+    assertEquals(-board.evaluate(), quiescence.search(board, false, -INFINITY, INFINITY, 0));
+    assertEquals(0L, quiescence.nodes);
+  }
+
+  @Test
+  void resolvesTheExchangeBeforeEvaluating() {
+    Quiescence quiescence = new Quiescence();
+    // exd4 wins the queen for a pawn after exd4
+    ChessBoard board =
+        ChessBoard.fromFen("rnb1kbnr/pppp1ppp/8/4p3/3q4/4P3/PPPP1PPP/RNBQKBNR w KQkq - 0 3");
+    int score = quiescence.search(board, true, -INFINITY, INFINITY, 0);
+    assertTrue(score > board.evaluate() + 700, score + " vs " + board.evaluate());
+    assertTrue(quiescence.nodes > 0);
+    assertEquals(
+        ChessBoard.fromFen("rnb1kbnr/pppp1ppp/8/4p3/3q4/4P3/PPPP1PPP/RNBQKBNR w KQkq - 0 3"),
+        board);
+
+    // Qxd5 loses the queen to cxd5, so White stands pat
+    board = ChessBoard.fromFen("4k3/8/2p5/3p4/8/8/8/3QK3 w - - 0 1");
+    assertEquals(board.evaluate(), quiescence.search(board, true, -INFINITY, INFINITY, 0));
+  }
+
+  @Test
+  void deltaPruningStillTriesDearerVictimsLaterInTheList() {
+    Quiescence quiescence = new Quiescence();
+    // exd5 (knight, 320) sorts ahead of Qxa7 (bishop, 330); alpha sits between the two
+    ChessBoard board = ChessBoard.fromFen("6k1/b7/8/3n4/4P3/8/8/Q6K w - - 0 1");
+    int alpha = board.evaluate() + 525;
+    int score = quiescence.search(board, true, alpha, INFINITY, 0);
+    assertTrue(score > board.evaluate(), score + " vs " + board.evaluate());
+    assertEquals(1L, quiescence.nodes);
+  }
+
+  @Test
+  void kingCapturesScoreAsMateAtTheirPly() {
+    Quiescence quiescence = new Quiescence();
+    ChessBoard board = ChessBoard.fromFen("4k3/8/8/8/8/8/8/4R1K1 w - - 0 1");
+    assertEquals(
+        AlphaBetaPlayer.MATE - 3, quiescence.search(board, true, -INFINITY, INFINITY, 3));
+    // Black has nothing to capture and stands pat, still a rook down
+    assertEquals(-board.evaluate(), quiescence.search(board, false, -INFINITY, INFINITY, 3));
+  }
+}
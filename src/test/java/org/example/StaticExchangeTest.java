@@ -0,0 +1,65 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class StaticExchangeTest {
+
+  @Test
+  void scoresTheWholeExchangeOnTheSquare() {
+    StaticExchange exchange = new StaticExchange();
+    // Rxe5 wins a pawn that nothing defends
+    assertEquals(100, see(exchange, "1k1r4/1pp4p/p7/4p3/8/P5P1/1PP4P/2K1R3 w - - 0 1", "e1e5"));
+    // Nxe5 Nxe5, and White stops a knight for a pawn down: Rxe5 Bxe5 Qxe5 Qxe5 would lose more
+    assertEquals(
+        -220,
+        see(exchange, "1k1r3q/1ppn3p/p4b2/4p3/8/P2N2P1/1PP1R1BP/2K1Q3 w - - 0 1", "d3e5"));
+    // Qxd5 loses the queen to cxd5
+    assertEquals(-800, see(exchange, "4k3/8/2p5/3p4/8/8/8/3QK3 w - - 0 1", "d1d5"));
+    // The rook behind the queen retakes after Qxd5 cxd5 (x-ray): two pawns for the queen
+    assertEquals(-700, see(exchange, "4k3/8/2p5/3p4/8/8/3Q4/3RK3 w - - 0 1", "d2d5"));
+    // exd4 wins the queen for the pawn that exd4 takes back
+    String fen = "rnb1kbnr/pppp1ppp/8/4p3/3q4/4P3/PPPP1PPP/RNBQKBNR w KQkq - 0 3";
+    assertEquals(800, see(exchange, fen, "e3d4"));
+    // A king may only recapture where nothing takes it back
+    assertEquals(-80, see(exchange, "4k3/8/8/1n6/3p4/4K3/8/3R4 w - - 0 1", "d1d4"));
+    assertEquals(-400, see(exchange, "4k3/8/5b2/1n6/3p4/4K3/8/3R4 w - - 0 1", "d1d4"));
+  }
+
+  @Test
+  void quietMovesAndKingCapturesToo() {
+    StaticExchange exchange = new StaticExchange();
+    // Qd4 puts the queen where the e5 pawn takes it
+    assertEquals(-900, see(exchange, "4k3/8/8/4p3/8/8/8/3QK3 w - - 0 1", "d1d4"));
+    assertEquals(0, see(exchange, "4k3/8/8/4p3/8/8/8/3QK3 w - - 0 1", "d1d3"));
+    assertEquals(
+        StaticExchange.KING_VALUE, see(exchange, "4k3/8/8/8/8/8/8/4R1K1 w - - 0 1", "e1e8"));
+  }
+
+  @Test
+  void onlyCapturesOfCheaperPiecesCanLose() {
+    StaticExchange exchange = new StaticExchange();
+    ChessBoard board = ChessBoard.fromFen("4k3/8/2p5/3p4/8/8/8/3QK3 w - - 0 1");
+    assertTrue(exchange.isLosing(board, find(board, "d1d5")));
+    board = ChessBoard.fromFen("4k3/8/8/3q4/8/8/8/3RK3 w - - 0 1");
+    assertFalse(exchange.isLosing(board, find(board, "d1d5")));
+  }
+
+  private static int see(StaticExchange exchange, String fen, String move) {
+    ChessBoard board = ChessBoard.fromFen(fen);
+    int value = exchange.evaluate(board, find(board, move));
+    assertEquals(ChessBoard.fromFen(fen), board);
+    return value;
+  }
+
+  // The move in coordinate notation among the side to move's moves.
+  private static int find(ChessBoard board, String name) {
+    MoveList moves = new MoveList();
+    board.generateMoves(board.whiteToMove(), moves);
+    for (int i = 0; i < moves.size(); i++) {
+      if (Move.toString(moves.get(i)).equals(name)) return moves.get(i);
+    }
+    throw new AssertionError(name + " is not a move of " + board.toFen());
+  }
+}
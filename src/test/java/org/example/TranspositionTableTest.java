@@ -0,0 +1,81 @@
+package org.example;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+import org.junit.jupiter.api.Test;
+
+public class TranspositionTableTest {
+
+  @Test
+  void entriesRoundTripTheirPackedFields() {
+    TranspositionTable table = new TranspositionTable(1);
+    assertEquals(1 << 16, table.entries());
+    int move = Move.encode(12, 28, ChessBoard.WHITE_PAWN, ChessBoard.EMPTY, Move.FLAG_DOUBLE_PUSH);
+    long key = 0x1234_5678_9ABC_DEF0L;
+    table.store(key, move, -AlphaBetaPlayer.MATE + 3, 17, TranspositionTable.UPPER);
+    long data = table.probe(key);
+    assertEquals(move, TranspositionTable.move(data));
+    assertEquals(-AlphaBetaPlayer.MATE + 3, TranspositionTable.score(data));
+    assertEquals(17, TranspositionTable.depth(data));
+    assertEquals(TranspositionTable.UPPER, TranspositionTable.bound(data));
+    assertEquals(0L, table.probe(key + 1));
+
+    // The same position keeps its move when a later result has none
+    table.store(key, Move.NONE, 250, 18, TranspositionTable.LOWER);
+    data = table.probe(key);
+    assertEquals(move, TranspositionTable.move(data));
+    assertEquals(250, TranspositionTable.score(data));
+    assertEquals(0L, table.collisions());
+  }
+
+  @Test
+  void fullBucketsReplaceTheShallowestAndOldestEntries() {
+    TranspositionTable table = new TranspositionTable(1);
+    long stride = table.entries() / 4; // keys differing by a multiple share a bucket
+    for (int i = 0; i < 4; i++) {
+      table.store(i * stride, Move.NONE, i, 10 + i, TranspositionTable.EXACT);
+    }
+    table.store(4 * stride, Move.NONE, 4, 5, TranspositionTable.EXACT);
+    assertEquals(0L, table.probe(0), "the shallowest entry is replaced");
+    assertNotEquals(0L, table.probe(4 * stride));
+
+    table.newSearch();
+    table.store(5 * stride, Move.NONE, 5, 4, TranspositionTable.EXACT);
+    assertEquals(0L, table.probe(4 * stride), "then the oldest shallow entry");
+    table.store(6 * stride, Move.NONE, 6, 1, TranspositionTable.EXACT);
+    assertEquals(0L, table.probe(stride), "older entries lose 8 plies per search");
+    assertNotEquals(0L, table.probe(5 * stride));
+    assertEquals(3L, table.collisions());
+    assertEquals(7L, table.stores());
+  }
+
+  @Test
+  void tornEntriesReadAsMisses() {
+    TranspositionTable table = new TranspositionTable(1);
+    table.store(42L, Move.NONE, 7, 3, TranspositionTable.EXACT);
+    // Another writer replaced only the data word of the entry (first in bucket 42)
+    table.table[42 * 8 + 1] ^= 1L << 30;
+    assertEquals(0L, table.probe(42L));
+    assertEquals(1L, table.probes());
+    assertEquals(0L, table.hits());
+  }
+
+  @Test
+  void countersReportHitsAndFill() {
+    TranspositionTable table = new TranspositionTable(1);
+    for (long key = 0; key < 2000; key++) {
+      table.store(key, Move.NONE, 0, 1, TranspositionTable.EXACT);
+    }
+    for (long key = 1000; key < 3000; key++) {
+      table.probe(key);
+    }
+    assertEquals(0.5, table.hitRate(), 1e-9);
+    assertEquals(0.0, table.collisionRate());
+    assertEquals(250, table.fillPermille()); // one entry in each of the first buckets
+    table.newSearch();
+    assertEquals(0, table.fillPermille(), "fill counts the current search only");
+    table.clear();
+    assertEquals(0L, table.probe(5));
+    assertEquals(0.0, table.hitRate());
+  }
+}